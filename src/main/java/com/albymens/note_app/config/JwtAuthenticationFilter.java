@@ -1,7 +1,9 @@
 package com.albymens.note_app.config;
 
+import com.albymens.note_app.exception.ServerBusyException;
 import com.albymens.note_app.service.JwtService;
 import com.albymens.note_app.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +11,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +19,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import java.io.IOException;
 
@@ -30,14 +34,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     JwtService jwtService;
     @Autowired
     UserService userService;
+    @Autowired
+    @Qualifier("handlerExceptionResolver")
+    HandlerExceptionResolver handlerExceptionResolver;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String token = parseJwt(request);
-            if(null != token && jwtService.validateToken(token)){
-                String username = jwtService.extractUsername(token);
+            Claims claims = null != token ? jwtService.verifyToken(token) : null;
+            if(null != claims){
+                String username = claims.getSubject();
                 UserDetails userDetails = userService.loadUserByUsername(username);
 
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
@@ -47,6 +55,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 log.info("Authenticated user: {}", username);
             }
 
+        } catch (ServerBusyException e) {
+            // Answered like the same exception from a controller, so clients see 503 and retry
+            // instead of a 401 that sends them back to the login.
+            log.warn("Cannot set user authentication: {}", e.getMessage());
+            handlerExceptionResolver.resolveException(request, response, null, e);
+            return;
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
         }
@@ -55,6 +69,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     }
 
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
     public String parseJwt(HttpServletRequest request){
         String header = request.getHeader(AUTH_HEADER);
 
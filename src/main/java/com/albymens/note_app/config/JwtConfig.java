@@ -1,16 +1,30 @@
 package com.albymens.note_app.config;
 
 import com.albymens.note_app.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class JwtConfig {
+    @Value("${security.password.hashing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${security.password.hashing.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${security.password.hashing.timeout:5s}")
+    private Duration timeout;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, timeout, meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,63 @@
+package com.albymens.note_app.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the
+ * primary. A user whose read-write transaction committed within the lag window keeps
+ * reading from the primary, so they see their own writes even if the replica is behind.
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the route is chosen after the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration lagWindow) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(lagWindow)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = currentUsername();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (username != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recentWriters.put(username, Boolean.TRUE);
+                    }
+                });
+            }
+            return Route.PRIMARY;
+        }
+
+        if (username != null && recentWriters.getIfPresent(username) != null) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.albymens.note_app.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Backs the Hibernate second-level cache with Caffeine's JCache provider. Every region is
+ * created here with a size bound, and Hibernate is told to fail rather than create an
+ * unbounded cache for a region that is not listed.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String USERS = "users";
+    public static final String USERS_NATURAL_ID = "users-natural-id";
+    public static final String NOTES = "notes";
+    public static final List<String> REGIONS = List.of(USERS, USERS_NATURAL_ID, NOTES,
+            RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+            RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${cache.l2.users.max-size:10000}") long usersMaxSize,
+                                                @Value("${cache.l2.notes.max-size:50000}") long notesMaxSize,
+                                                @Value("${cache.l2.queries.max-size:10000}") long queriesMaxSize,
+                                                @Value("${cache.l2.expire-after-write:10m}") Duration expireAfterWrite) {
+        // A manager of its own, so that application contexts sharing a class loader do not share regions
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("note-app-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        cacheManager.createCache(USERS, bounded(usersMaxSize, expireAfterWrite));
+        cacheManager.createCache(USERS_NATURAL_ID, bounded(usersMaxSize, expireAfterWrite));
+        cacheManager.createCache(NOTES, bounded(notesMaxSize, expireAfterWrite));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                bounded(queriesMaxSize, expireAfterWrite));
+        // Update timestamps must outlive the query results they validate, and there is one entry per table
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                bounded(1_000, null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (expireAfterWrite != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,59 @@
+package com.albymens.note_app.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting hits, misses and hit ratios of the second-level cache regions.
+ * Counts are only collected with {@code hibernate.generate_statistics} enabled.
+ */
+@Component
+@Endpoint(id = "l2cache")
+public class SecondLevelCacheEndpoint {
+
+    private final Statistics statistics;
+
+    public SecondLevelCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> cacheStatistics() {
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : SecondLevelCacheConfig.REGIONS) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                regions.put(region, counts(regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                        regionStatistics.getPutCount()));
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("secondLevelCache", counts(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        result.put("naturalIdCache", counts(statistics.getNaturalIdCacheHitCount(),
+                statistics.getNaturalIdCacheMissCount(), statistics.getNaturalIdCachePutCount()));
+        result.put("queryCache", counts(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        result.put("regions", regions);
+        return result;
+    }
+
+    private static Map<String, Object> counts(long hits, long misses, long puts) {
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("hits", hits);
+        counts.put("misses", misses);
+        counts.put("puts", puts);
+        counts.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return counts;
+    }
+}
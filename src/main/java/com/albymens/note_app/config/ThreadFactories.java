@@ -0,0 +1,32 @@
+package com.albymens.note_app.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the executors the application creates itself. With
+ * {@code spring.threads.virtual.enabled=true} the executors whose work mostly waits on JDBC,
+ * sockets or queues run their tasks on virtual threads; the pools keep their sizes and queues,
+ * so they still bound how much of that work runs at once.
+ */
+@Component
+public class ThreadFactories {
+
+    private final boolean virtual;
+
+    public ThreadFactories(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public ThreadFactory blocking(String prefix) {
+        return virtual ? Thread.ofVirtual().name(prefix, 1).factory() : new CustomizableThreadFactory(prefix);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+}
@@ -0,0 +1,38 @@
+package com.albymens.note_app.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint listing where virtual threads were pinned to their carrier. Sites are
+ * only collected with {@code spring.threads.virtual.enabled} set.
+ */
+@Component
+@Endpoint(id = "pinning")
+public class VirtualThreadPinningEndpoint {
+
+    private final ThreadFactories threadFactories;
+    private final ObjectProvider<VirtualThreadPinningMonitor> monitor;
+
+    public VirtualThreadPinningEndpoint(ThreadFactories threadFactories,
+                                        ObjectProvider<VirtualThreadPinningMonitor> monitor) {
+        this.threadFactories = threadFactories;
+        this.monitor = monitor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> pinning() {
+        VirtualThreadPinningMonitor pinningMonitor = monitor.getIfAvailable();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("virtualThreads", threadFactories.isVirtual());
+        result.put("threshold", pinningMonitor == null ? null : pinningMonitor.getThreshold().toString());
+        result.put("sites", pinningMonitor == null ? List.of() : pinningMonitor.sites());
+        return result;
+    }
+}
@@ -0,0 +1,168 @@
+package com.albymens.note_app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, typically by blocking
+ * inside a {@code synchronized} block or a native call. Listens to the JFR
+ * {@code jdk.VirtualThreadPinned} event and attributes each pin to the innermost frame of
+ * this application, or to the innermost frame when no application code is on the stack.
+ * Every site is logged with its stack the first time it is seen and counted in the
+ * {@code notes.threads.pinned} timer; the totals are served by the {@code pinning} actuator
+ * endpoint.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    static final String OTHER_SITE = "other";
+    private static final String APPLICATION_PACKAGE = "com.albymens.note_app.";
+    private static final int MAX_SITES = 100;
+    private static final int MAX_LOGGED_FRAMES = 12;
+
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final RecordingStream recording;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${notes.threads.pinning.threshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+        this.recording = new RecordingStream();
+        this.recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        this.recording.onEvent(PINNED_EVENT, this::record);
+        this.recording.startAsync();
+        logger.info("Reporting virtual threads pinned for longer than {}", threshold);
+    }
+
+    public Duration getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the pinning sites seen so far, most frequent first.
+     */
+    public List<Map<String, Object>> sites() {
+        List<Site> sorted = new ArrayList<>(sites.values());
+        sorted.sort(Comparator.comparingLong(Site::count).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(sorted.size());
+        for (Site site : sorted) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("site", site.name);
+            entry.put("count", site.count());
+            entry.put("totalMillis", site.totalNanos.sum() / 1_000_000);
+            entry.put("maxMillis", site.maxNanos / 1_000_000);
+            entry.put("stack", site.stack);
+            result.add(entry);
+        }
+        return result;
+    }
+
+    void record(RecordedEvent event) {
+        List<String> stack = frames(event.getStackTrace());
+        String name = siteOf(stack);
+        if (!sites.containsKey(name) && sites.size() >= MAX_SITES) {
+            name = OTHER_SITE;
+        }
+        Duration duration = event.getDuration();
+        Site site = sites.computeIfAbsent(name, key -> {
+            logger.warn("Virtual thread {} pinned its carrier for {} ms at {}\n\tat {}",
+                    threadName(event), duration.toMillis(), key, String.join("\n\tat ", stack));
+            return new Site(key, stack, Timer.builder("notes.threads.pinned")
+                    .tag("site", key)
+                    .register(meterRegistry));
+        });
+        site.record(duration);
+    }
+
+    private static List<String> frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return List.of();
+        }
+        List<String> frames = new ArrayList<>();
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frames.size() == MAX_LOGGED_FRAMES) {
+                break;
+            }
+            if (frame.isJavaFrame()) {
+                frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber());
+            }
+        }
+        return List.copyOf(frames);
+    }
+
+    private static String siteOf(List<String> stack) {
+        for (String frame : stack) {
+            if (frame.startsWith(APPLICATION_PACKAGE)) {
+                return frame;
+            }
+        }
+        return stack.isEmpty() ? "unknown" : stack.get(0);
+    }
+
+    private static String threadName(RecordedEvent event) {
+        if (event.getThread() == null) {
+            return "?";
+        }
+        String name = event.getThread().getJavaName();
+        return name == null || name.isEmpty() ? "#" + event.getThread().getJavaThreadId() : name;
+    }
+
+    @Override
+    public void destroy() {
+        recording.close();
+    }
+
+    private static final class Site {
+        private final String name;
+        private final List<String> stack;
+        private final Timer timer;
+        private final LongAdder totalNanos = new LongAdder();
+        private volatile long maxNanos;
+
+        Site(String name, List<String> stack, Timer timer) {
+            this.name = name;
+            this.stack = stack;
+            this.timer = timer;
+        }
+
+        void record(Duration duration) {
+            long nanos = duration.toNanos();
+            timer.record(duration);
+            totalNanos.add(nanos);
+            if (nanos > maxNanos) {
+                maxNanos = nanos;
+            }
+        }
+
+        long count() {
+            return timer.count();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.albymens.note_app.controller;
+
+import com.albymens.note_app.service.NoteExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "Administration",
+        description = "Endpoints reserved for administrators listed in security.admin.usernames.")
+public class AdminController {
+
+    @Autowired
+    NoteExportService noteExportService;
+
+    @Operation(
+            summary = "Export the notes of every user",
+            description = "Streams the active notes of all users as a zip of Markdown files with one folder per user",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Notes streamed successfully"),
+                    @ApiResponse(responseCode = "403", description = "Not an administrator"),
+                    @ApiResponse(responseCode = "503", description = "Another export of all notes is running")
+            }
+    )
+    @GetMapping("/notes/export")
+    public ResponseEntity<StreamingResponseBody> exportAllNotes(){
+        NoteExportService.AllNotesExport export = noteExportService.startAllNotesExport();
+        StreamingResponseBody body = export::writeTo;
+        return ResponseEntity.ok()
+                .contentType(NoteExportService.ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"all-notes.zip\"")
+                .body(body);
+    }
+}
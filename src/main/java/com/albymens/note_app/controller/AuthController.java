@@ -4,6 +4,7 @@ import com.albymens.note_app.dto.ApiResult;
 import com.albymens.note_app.dto.AuthResponse;
 import com.albymens.note_app.dto.LoginRequest;
 import com.albymens.note_app.dto.SignupRequest;
+import com.albymens.note_app.exception.ServerBusyException;
 import com.albymens.note_app.model.User;
 import com.albymens.note_app.service.JwtService;
 import com.albymens.note_app.service.UserService;
@@ -17,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -59,6 +61,8 @@ public class AuthController {
 
             logger.info("User registered successfully {}", user.getUsername());
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (ServerBusyException e){
+            throw e;
         } catch (RuntimeException e){
             logger.warn("Signup failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(new AuthResponse(e.getMessage()));
@@ -94,6 +98,18 @@ public class AuthController {
             logger.info("User logged in successfully: {}", user.getUsername());
             return ResponseEntity.ok(response);
 
+        } catch (ServerBusyException e) {
+            logger.warn("Login rejected for {}: {}", request.getUsernameOrEmail(), e.getMessage());
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            // The authentication provider wraps whatever the user lookup throws.
+            if (e.getCause() instanceof ServerBusyException serverBusy) {
+                logger.warn("Login rejected for {}: {}", request.getUsernameOrEmail(), serverBusy.getMessage());
+                throw serverBusy;
+            }
+            logger.error("Login failed for {}: {}", request.getUsernameOrEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new AuthResponse("Invalid credentials"));
         } catch (Exception e) {
             logger.error("Login failed for {}: {}", request.getUsernameOrEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
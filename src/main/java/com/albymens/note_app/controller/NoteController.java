@@ -1,10 +1,21 @@
 package com.albymens.note_app.controller;
 
 import com.albymens.note_app.dto.ApiResult;
+import com.albymens.note_app.dto.CursorPageResponse;
+import com.albymens.note_app.dto.NoteCursor;
 import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
 import com.albymens.note_app.dto.PageResponse;
+import com.albymens.note_app.dto.SyncToken;
+import com.albymens.note_app.events.NoteEventBus;
+import com.albymens.note_app.exception.IllegalArgumentsException;
 import com.albymens.note_app.model.Note;
 import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.projection.NoteVersion;
+import com.albymens.note_app.repository.specification.TagMatch;
+import com.albymens.note_app.service.NoteExportService;
+import com.albymens.note_app.service.NoteImportJob;
+import com.albymens.note_app.service.NoteImportService;
 import com.albymens.note_app.service.NoteService;
 import com.albymens.note_app.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -21,13 +32,22 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/notes")
@@ -41,6 +61,12 @@ public class NoteController {
     NoteService noteService;
     @Autowired
     UserService userService;
+    @Autowired
+    NoteExportService noteExportService;
+    @Autowired
+    NoteImportService noteImportService;
+    @Autowired
+    NoteEventBus noteEventBus;
 
     @Operation(summary = "Create a new note",
     description = "Allow an authenticated user to create a new note with title, content and tags.",
@@ -57,34 +83,114 @@ public class NoteController {
         );
     }
 
+    @Operation(summary = "Create notes in bulk",
+            description = "Creates up to the configured batch limit of notes in one transaction and returns a result per item.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+                    @ApiResponse(responseCode = "400", description = "Empty or oversized batch")
+            })
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResult> createNotes(@RequestBody List<Note> notes,
+                                                 @AuthenticationPrincipal UserDetails userDetails){
+        return ResponseEntity.ok(new ApiResult(
+                true, "Batch processed", noteService.createNotes(notes, userDetails.getUsername())
+        ));
+    }
+
+    @Operation(summary = "Update notes in bulk",
+            description = "Applies title, content and tag changes to up to the configured batch limit of the current user's notes in one transaction.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+                    @ApiResponse(responseCode = "400", description = "Empty or oversized batch")
+            })
+    @PatchMapping("/batch")
+    public ResponseEntity<ApiResult> updateNotes(@RequestBody List<Note> notes,
+                                                 @AuthenticationPrincipal UserDetails userDetails){
+        return ResponseEntity.ok(new ApiResult(
+                true, "Batch processed", noteService.updateNotes(notes, userDetails.getUsername())
+        ));
+    }
+
+    @Operation(summary = "Delete notes in bulk",
+            description = "Soft deletes up to the configured batch limit of the current user's notes in one transaction.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+                    @ApiResponse(responseCode = "400", description = "Empty or oversized batch")
+            })
+    @DeleteMapping("/batch")
+    public ResponseEntity<ApiResult> deleteNotes(@RequestBody List<Long> ids,
+                                                 @AuthenticationPrincipal UserDetails userDetails){
+        return ResponseEntity.ok(new ApiResult(
+                true, "Batch processed", noteService.deleteNotes(ids, userDetails.getUsername())
+        ));
+    }
+
     @Operation(
             summary = "Get a note",
-            description = "Retrieve current user note",
+            description = "Retrieve current user note. Responses carry an ETag and Last-Modified so clients can revalidate with If-None-Match or If-Modified-Since.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Note retrieved successfully"),
+                    @ApiResponse(responseCode = "304", description = "Note unchanged since the validator sent by the client"),
                     @ApiResponse(responseCode = "401", description = "Unauthorized")
             }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResult> getNote(@PathVariable Long id){
-        return ResponseEntity.ok(new ApiResult(
-                true, "Note retrieved successfully", noteService.getNoteById(id)
-        ));
+    public ResponseEntity<ApiResult> getNote(@PathVariable Long id, WebRequest request,
+                                             @AuthenticationPrincipal UserDetails userDetails){
+        User user = userService.findByUsernameOrEmail(userDetails.getUsername());
+        if (noteService.hasPendingAutosave(id, user)) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(new ApiResult(true, "Note retrieved successfully", noteService.getNoteById(id, user)));
+        }
+
+        Optional<NoteVersion> version = noteService.findNoteVersion(id, user);
+        if (version.isPresent() && request.checkNotModified(
+                NoteETags.forNote(version.get()), NoteETags.lastModified(version.get()))) {
+            return null;
+        }
+
+        NoteDto note = noteService.getNoteById(id, user);
+        NoteVersion current = new NoteVersion(note.getId(), note.getVersion(), note.getUpdatedAt());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(NoteETags.forNote(current))
+                .lastModified(NoteETags.lastModified(current))
+                .body(new ApiResult(true, "Note retrieved successfully", note));
     }
 
     @Operation(
             summary = "Update a Note",
-            description = "Update an existing note's title, content and tags for the current user",
+            description = "Update an existing note's title, content and tags for the current user. With autosave=true the change is buffered, " +
+                    "merged with other pending edits to the same note and written in the background; reads already return the buffered values.",
+            parameters = {
+                    @Parameter(name = "autosave", description = "Buffer the change instead of writing it immediately (default = false)", example = "true")
+            },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Note updated successfully"),
-                    @ApiResponse(responseCode = "404", description = "Note not found")
+                    @ApiResponse(responseCode = "202", description = "Autosave change buffered"),
+                    @ApiResponse(responseCode = "404", description = "Note not found"),
+                    @ApiResponse(responseCode = "412", description = "If-Match does not match the note's current ETag")
             }
     )
     @PutMapping("/{id}")
-    public ResponseEntity<ApiResult> updateNote(@PathVariable Long id, @RequestBody Note note){
-        return ResponseEntity.ok(new ApiResult(
-                true, "Note updated successfully", noteService.updateNote(id, note)
-        ));
+    public ResponseEntity<ApiResult> updateNote(@PathVariable Long id, @RequestBody Note note,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                @RequestParam(defaultValue = "false") boolean autosave,
+                                                @AuthenticationPrincipal UserDetails userDetails){
+        if (autosave) {
+            if (ifMatch != null) {
+                throw new IllegalArgumentsException("If-Match cannot be combined with autosave");
+            }
+            noteService.autosaveNote(id, note, userDetails.getUsername());
+            return ResponseEntity.accepted().body(new ApiResult(true, "Note changes saved", null));
+        }
+
+        NoteDto updated = noteService.updateNote(
+                id, note, userDetails.getUsername(), NoteETags.expectedVersion(id, ifMatch));
+        return ResponseEntity.ok()
+                .eTag(NoteETags.forNote(new NoteVersion(updated.getId(), updated.getVersion(), updated.getUpdatedAt())))
+                .body(new ApiResult(true, "Note updated successfully", updated));
     }
 
     @Operation(
@@ -96,13 +202,33 @@ public class NoteController {
             }
     )
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResult> deleteNote(@PathVariable Long id){
-        noteService.deleteNote(id);
+    public ResponseEntity<ApiResult> deleteNote(@PathVariable Long id,
+                                                @AuthenticationPrincipal UserDetails userDetails){
+        noteService.deleteNote(id, userDetails.getUsername());
         return ResponseEntity.ok(new ApiResult(
                 true, "Note deleted successfully", null
         ));
     }
 
+    @Operation(
+            summary = "Delete notes by tag",
+            description = "Soft deletes all of the current user's notes carrying any of the given tags in a single statement",
+            parameters = {
+                    @Parameter(name = "tags", description = "Tags whose notes should be deleted", example = "['archive']")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Notes deleted successfully, data holds the number of deleted notes"),
+                    @ApiResponse(responseCode = "400", description = "No tags given")
+            }
+    )
+    @DeleteMapping("/tagged")
+    public ResponseEntity<ApiResult> deleteNotesByTags(@RequestParam List<String> tags,
+                                                       @AuthenticationPrincipal UserDetails userDetails){
+        return ResponseEntity.ok(new ApiResult(
+                true, "Notes deleted successfully", noteService.deleteNotesByTags(tags, userDetails.getUsername())
+        ));
+    }
+
     @Operation(
             summary = "Restore a deleted Note",
             description = "Restores a previous deleted note for a user",
@@ -111,8 +237,9 @@ public class NoteController {
             }
     )
     @PatchMapping("/{id}/restore")
-    public ResponseEntity<ApiResult> restoreDeletedNote(@PathVariable Long id){
-        noteService.restoreNote(id);
+    public ResponseEntity<ApiResult> restoreDeletedNote(@PathVariable Long id,
+                                                        @AuthenticationPrincipal UserDetails userDetails){
+        noteService.restoreNote(id, userDetails.getUsername());
         return ResponseEntity.ok(new ApiResult(
                 true, "Note restored successfully", null
         ));
@@ -120,12 +247,14 @@ public class NoteController {
 
     @Operation(
             summary = "Search notes",
-            description = "Search notes by title, content, or tags. Supports pagination.",
+            description = "Search notes by title, content, or tags. Supports pagination. Results are summaries with an excerpt; fetch a note by id for its full content.",
             parameters = {
                     @Parameter(name = "searchTerm", description = "Keyword to search in title or content", example = "meeting"),
                     @Parameter(name = "tags", description = "List of tags to filter by", example = "['work','personal']"),
+                    @Parameter(name = "tagMatch", description = "Whether notes must have any or all of the tags (default = any)", example = "all"),
                     @Parameter(name = "page", description = "Page number (default = 0)", example = "0"),
-                    @Parameter(name = "size", description = "Page size (default = 10)", example = "10")
+                    @Parameter(name = "size", description = "Page size (default = 10)", example = "10"),
+                    @Parameter(name = "cursor", description = "Opaque cursor for keyset pagination. Send an empty value for the first page, then the returned nextCursor. Only createdAt and updatedAt sorting is supported and no total count is returned.")
             },
             responses = {
                     @ApiResponse(responseCode = "200", description = "Notes retrieved successfully"),
@@ -135,38 +264,173 @@ public class NoteController {
     @GetMapping("/search")
     public ResponseEntity<ApiResult> searchNotes(
             @RequestParam(required = false) List<String> tags,
+            @RequestParam(defaultValue = "any") String tagMatch,
             @RequestParam(required = false) String searchTerm,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt,desc") String[] sort,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @RequestParam(required = false) String cursor,
+            @AuthenticationPrincipal UserDetails userDetails,
+            WebRequest request) {
 
         User user = userService.findByUsernameOrEmail(userDetails.getUsername());
 
+        if (cursor != null) {
+            NoteCursor noteCursor = cursor.isBlank()
+                    ? NoteCursor.first(sort[0], Sort.Direction.fromString(sort[1]))
+                    : NoteCursor.decode(cursor);
+            CursorPageResponse<NoteSummary> cursorPage = noteService.searchNotes(
+                    user, tags, TagMatch.from(tagMatch), searchTerm, noteCursor, size);
+            return ResponseEntity.ok(new ApiResult(true, "Notes retrieved successfully", cursorPage));
+        }
+
         Sort sorting = Sort.by(Sort.Direction.fromString(sort[1]), sort[0]);
         Pageable pageable = PageRequest.of(page, size, sorting);
 
-        Page<NoteDto> results = noteService.searchNotes(user, tags, searchTerm, pageable);
+        Page<NoteSummary> results = noteService.searchNotes(user, tags, TagMatch.from(tagMatch), searchTerm, pageable);
         logger.info("Results {}", results);
-        PageResponse<NoteDto> pageResponse = new PageResponse<>(results);
+        PageResponse<NoteSummary> pageResponse = new PageResponse<>(results);
+        // Buffered autosaves show in the page but not in its versions, so such a page gets no validator.
+        if (results.stream().anyMatch(note -> noteService.hasPendingAutosave(note.getId(), user))) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(new ApiResult(true, "Notes retrieved successfully", pageResponse));
+        }
+
+        String eTag = NoteETags.forPage(results.map(n -> new NoteVersion(n.getId(), n.getVersion(), n.getUpdatedAt())));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(eTag)
+                .body(new ApiResult(true, "Notes retrieved successfully", pageResponse));
+    }
 
-        return ResponseEntity.ok(new ApiResult(true, "Notes retrieved successfully", pageResponse));
+    @Operation(
+            summary = "Stream note events",
+            description = "Opens a Server-Sent Events stream of created, updated, deleted and restored notes of the current user. " +
+                    "A resync event asks the client to reload. The stream is closed when the client falls too far behind.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Event stream opened"),
+                    @ApiResponse(responseCode = "401", description = "UnAuthorized")
+            }
+    )
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@AuthenticationPrincipal UserDetails userDetails){
+        User user = userService.findByUsernameOrEmail(userDetails.getUsername());
+        return noteEventBus.subscribe(user.getId());
+    }
+
+    @Operation(
+            summary = "Get note changes",
+            description = "Returns the current user's notes created, updated or deleted since a sync token, oldest first. " +
+                    "Omit since for a full sync of active notes, then keep sending the returned nextToken. " +
+                    "Deleted notes come back as DELETED entries without a body.",
+            parameters = {
+                    @Parameter(name = "since", description = "nextToken from the previous response"),
+                    @Parameter(name = "limit", description = "Maximum number of changes to return (default = 100)", example = "100")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Changes retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid sync token"),
+                    @ApiResponse(responseCode = "410", description = "Sync token expired, start a full sync")
+            }
+    )
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResult> getChanges(@RequestParam(required = false) String since,
+                                                @RequestParam(defaultValue = "100") int limit,
+                                                @AuthenticationPrincipal UserDetails userDetails){
+        User user = userService.findByUsernameOrEmail(userDetails.getUsername());
+        SyncToken token = null == since || since.isBlank() ? null : SyncToken.decode(since);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new ApiResult(true, "Changes retrieved successfully", noteService.findChanges(user, token, limit)));
     }
 
     @Operation(
             summary = "Get All active notes",
-            description = "Retrieves all active(non-deleted notes) belonging to the current user",
+            description = "Retrieves summaries of all active(non-deleted notes) belonging to the current user",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Notes retrieved successfully"),
                     @ApiResponse(responseCode = "401", description = "UnAuthorized")
             }
     )
     @GetMapping("")
-    public ResponseEntity<ApiResult> getActiveNotes(){
+    public ResponseEntity<ApiResult> getActiveNotes(@AuthenticationPrincipal UserDetails userDetails){
+        User user = userService.findByUsernameOrEmail(userDetails.getUsername());
         return ResponseEntity.ok(new ApiResult(
-                true, "Notes retrieved successfully", noteService.findAllActiveNotes())
+                true, "Notes retrieved successfully", noteService.findAllActiveNotes(user))
         );
     }
 
+    @Operation(
+            summary = "Export active notes",
+            description = "Streams all active (non-deleted) notes of the current user as newline-delimited JSON, as a JSON array " +
+                    "or as a zip of Markdown files with front matter",
+            parameters = {
+                    @Parameter(name = "format", description = "ndjson (default), json or markdown", example = "ndjson")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Notes streamed successfully"),
+                    @ApiResponse(responseCode = "400", description = "Unsupported format")
+            }
+    )
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportNotes(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @AuthenticationPrincipal UserDetails userDetails){
+        User user = userService.findByUsernameOrEmail(userDetails.getUsername());
+        NoteExportService.Format exportFormat = NoteExportService.Format.from(format);
+
+        StreamingResponseBody body = outputStream -> noteExportService.writeActiveNotes(user, exportFormat, outputStream);
+        if (exportFormat == NoteExportService.Format.MARKDOWN) {
+            return ResponseEntity.ok()
+                    .contentType(NoteExportService.ZIP)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notes.zip\"")
+                    .body(body);
+        }
+        return ResponseEntity.ok()
+                .contentType(exportFormat == NoteExportService.Format.JSON ? MediaType.APPLICATION_JSON : NoteExportService.NDJSON)
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Import notes",
+            description = "Uploads a zip of Markdown files or a JSON array of notes and imports it in the background. " +
+                    "Poll the returned job for progress.",
+            parameters = {
+                    @Parameter(name = "format", description = "markdown or json, detected from the file name when omitted", example = "markdown")
+            },
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Import queued"),
+                    @ApiResponse(responseCode = "400", description = "Empty file or unsupported format"),
+                    @ApiResponse(responseCode = "503", description = "Too many imports running")
+            }
+    )
+    @PostMapping(value = "/imports", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResult> importNotes(@RequestParam("file") MultipartFile file,
+                                                 @RequestParam(required = false) String format,
+                                                 @AuthenticationPrincipal UserDetails userDetails){
+        NoteImportJob job = noteImportService.startImport(file, format, userDetails.getUsername());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/notes/imports/" + job.getId()))
+                .body(new ApiResult(true, "Import started", job));
+    }
 
+    @Operation(
+            summary = "Get import progress",
+            description = "Returns the state and counters of one of the current user's imports",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import job retrieved successfully"),
+                    @ApiResponse(responseCode = "404", description = "Import job not found or expired")
+            }
+    )
+    @GetMapping("/imports/{jobId}")
+    public ResponseEntity<ApiResult> getImport(@PathVariable String jobId,
+                                               @AuthenticationPrincipal UserDetails userDetails){
+        return ResponseEntity.ok(new ApiResult(
+                true, "Import job retrieved successfully", noteImportService.getJob(jobId, userDetails.getUsername())
+        ));
+    }
 }
@@ -0,0 +1,69 @@
+package com.albymens.note_app.controller;
+
+import com.albymens.note_app.exception.PreconditionFailedException;
+import com.albymens.note_app.repository.projection.NoteVersion;
+import org.springframework.data.domain.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class NoteETags {
+
+    private NoteETags() {
+    }
+
+    public static String forNote(NoteVersion note) {
+        return "\"" + note.id() + "-" + note.version() + "\"";
+    }
+
+    public static long lastModified(NoteVersion note) {
+        return note.updatedAt() == null ? -1 : note.updatedAt().toEpochMilli();
+    }
+
+    public static String forPage(Page<NoteVersion> page) {
+        StringBuilder validator = new StringBuilder()
+                .append(page.getNumber()).append('/')
+                .append(page.getSize()).append('/')
+                .append(page.getTotalElements());
+        for (NoteVersion note : page.getContent()) {
+            validator.append(';').append(note.id()).append(':').append(note.version());
+        }
+        return "\"" + digest(validator.toString()) + "\"";
+    }
+
+    /**
+     * Returns the version named by an If-Match header produced by {@link #forNote}, or
+     * {@code null} when the header is absent or is the "*" wildcard.
+     */
+    static Integer expectedVersion(Long noteId, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            throw new PreconditionFailedException("Weak entity tags cannot be used with If-Match");
+        }
+        value = value.replace("\"", "");
+        String prefix = noteId + "-";
+        if (!value.startsWith(prefix)) {
+            throw new PreconditionFailedException("If-Match does not refer to note " + noteId);
+        }
+        try {
+            return Integer.valueOf(value.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("Malformed If-Match header: " + ifMatch);
+        }
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
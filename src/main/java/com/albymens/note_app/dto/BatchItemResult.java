@@ -0,0 +1,35 @@
+package com.albymens.note_app.dto;
+
+public class BatchItemResult {
+    private int index;
+    private Long id;
+    private boolean success;
+    private String message;
+
+    public BatchItemResult(int index, Long id, boolean success, String message) {
+        this.index = index;
+        this.id = id;
+        this.success = success;
+        this.message = message;
+    }
+
+    public static BatchItemResult succeeded(int index, Long id) {
+        return new BatchItemResult(index, id, true, null);
+    }
+
+    public static BatchItemResult failed(int index, Long id, String message) {
+        return new BatchItemResult(index, id, false, message);
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
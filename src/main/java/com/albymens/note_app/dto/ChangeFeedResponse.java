@@ -0,0 +1,24 @@
+package com.albymens.note_app.dto;
+
+import java.util.List;
+
+public class ChangeFeedResponse {
+    private List<NoteChange> changes;
+    private String nextToken;
+    private boolean hasMore;
+
+    public ChangeFeedResponse(List<NoteChange> changes, String nextToken, boolean hasMore) {
+        this.changes = changes;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+    }
+
+    public List<NoteChange> getChanges() { return changes; }
+    public void setChanges(List<NoteChange> changes) { this.changes = changes; }
+
+    public String getNextToken() { return nextToken; }
+    public void setNextToken(String nextToken) { this.nextToken = nextToken; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,29 @@
+package com.albymens.note_app.dto;
+
+import java.util.List;
+
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int pageSize;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public CursorPageResponse(List<T> content, int pageSize, String nextCursor) {
+        this.content = content;
+        this.pageSize = pageSize;
+        this.hasNext = nextCursor != null;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+
+    public int getPageSize() { return pageSize; }
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,38 @@
+package com.albymens.note_app.dto;
+
+import java.time.Instant;
+
+public class NoteChange {
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Long id;
+    private Type type;
+    private Integer version;
+    private Instant updatedAt;
+    private NoteDto note;
+
+    public NoteChange(Long id, Type type, Integer version, Instant updatedAt, NoteDto note) {
+        this.id = id;
+        this.type = type;
+        this.version = version;
+        this.updatedAt = updatedAt;
+        this.note = note;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public Integer getVersion() { return version; }
+    public void setVersion(Integer version) { this.version = version; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    public NoteDto getNote() { return note; }
+    public void setNote(NoteDto note) { this.note = note; }
+}
@@ -0,0 +1,76 @@
+package com.albymens.note_app.dto;
+
+import com.albymens.note_app.exception.IllegalArgumentsException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+
+public class NoteCursor {
+    private static final Set<String> SORT_FIELDS = Set.of("createdAt", "updatedAt");
+    private static final String SEPARATOR = "|";
+
+    private final String sortBy;
+    private final Sort.Direction direction;
+    private final Instant sortKey;
+    private final Long id;
+
+    public NoteCursor(String sortBy, Sort.Direction direction, Instant sortKey, Long id) {
+        if (!SORT_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentsException("Cursor pagination only supports sorting by " + SORT_FIELDS);
+        }
+        this.sortBy = sortBy;
+        this.direction = direction;
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    public static NoteCursor first(String sortBy, Sort.Direction direction) {
+        return new NoteCursor(sortBy, direction, null, null);
+    }
+
+    public static NoteCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR);
+            return new NoteCursor(parts[0], Sort.Direction.valueOf(parts[1]), Instant.parse(parts[2]), Long.valueOf(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentsException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public NoteCursor next(Instant sortKey, Long id) {
+        return new NoteCursor(sortBy, direction, sortKey, id);
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, sortBy, direction.name(), sortKey.toString(), id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return sortKey == null;
+    }
+
+    public Sort toSort() {
+        return Sort.by(direction, sortBy, "id");
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Instant getSortKey() {
+        return sortKey;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
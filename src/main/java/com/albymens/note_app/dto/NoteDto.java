@@ -11,6 +11,7 @@ public class NoteDto {
     private String username;
     private Instant createdAt;
     private Instant updatedAt;
+    private Integer version;
 
     public Instant getCreatedAt() {
         return createdAt;
@@ -38,6 +39,12 @@ public class NoteDto {
         this.updatedAt = updatedAt;
     }
 
+    public NoteDto(Long id, String title, String content, List<String> tags, String username, Instant createdAt,
+                   Instant updatedAt, Integer version) {
+        this(id, title, content, tags, username, createdAt, updatedAt);
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -77,4 +84,12 @@ public class NoteDto {
     public void setUsername(String username) {
         this.username = username;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
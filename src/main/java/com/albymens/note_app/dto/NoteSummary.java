@@ -0,0 +1,91 @@
+package com.albymens.note_app.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class NoteSummary {
+    private Long id;
+    private String title;
+    private List<String> tags;
+    private String excerpt;
+    private int contentLength;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Integer version;
+
+    public NoteSummary(Long id, String title, List<String> tags, String excerpt, int contentLength,
+                       Instant createdAt, Instant updatedAt, Integer version) {
+        this.id = id;
+        this.title = title;
+        this.tags = tags;
+        this.excerpt = excerpt;
+        this.contentLength = contentLength;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(int contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+}
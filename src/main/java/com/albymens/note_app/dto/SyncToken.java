@@ -0,0 +1,56 @@
+package com.albymens.note_app.dto;
+
+import com.albymens.note_app.exception.IllegalArgumentsException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in a user's change feed: the last change a client has seen, ordered by
+ * {@code updatedAt} and then id.
+ */
+public class SyncToken {
+    private static final String SEPARATOR = "|";
+
+    private final Instant updatedAt;
+    private final Long id;
+
+    public SyncToken(Instant updatedAt, Long id) {
+        this.updatedAt = updatedAt.truncatedTo(ChronoUnit.MICROS);
+        this.id = id;
+    }
+
+    public static SyncToken initial() {
+        return new SyncToken(Instant.EPOCH, 0L);
+    }
+
+    public static SyncToken decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR);
+            return new SyncToken(Instant.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentsException("Invalid sync token: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, updatedAt.toString(), id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isAfter(SyncToken other) {
+        int compared = updatedAt.compareTo(other.updatedAt);
+        return compared > 0 || compared == 0 && id > other.id;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,53 @@
+package com.albymens.note_app.events;
+
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.model.Note;
+
+/**
+ * A change to one of a user's notes as pushed to their open sessions. Deletions carry only
+ * the note id; {@link Type#RESYNC} tells clients to reload because the change could not be
+ * described note by note.
+ */
+public class NoteEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, RESTORED, RESYNC
+    }
+
+    private final Type type;
+    private final Long noteId;
+    private final NoteSummary note;
+
+    private NoteEvent(Type type, Long noteId, NoteSummary note) {
+        this.type = type;
+        this.noteId = noteId;
+        this.note = note;
+    }
+
+    public static NoteEvent of(Type type, Note note) {
+        return new NoteEvent(type, note.getId(), new NoteSummary(note.getId(), note.getTitle(), note.getTags(),
+                note.getExcerpt(), note.getContentLength(), note.getCreatedAt(), note.getUpdatedAt(), note.getVersion()));
+    }
+
+    public static NoteEvent of(Type type, NoteDto note) {
+        String content = note.getContent();
+        return new NoteEvent(type, note.getId(), new NoteSummary(note.getId(), note.getTitle(), note.getTags(),
+                Note.excerptOf(content), null != content ? content.length() : 0,
+                note.getCreatedAt(), note.getUpdatedAt(), note.getVersion()));
+    }
+
+    public static NoteEvent deleted(Long noteId) {
+        return new NoteEvent(Type.DELETED, noteId, null);
+    }
+
+    public static NoteEvent resync() {
+        return new NoteEvent(Type.RESYNC, null, null);
+    }
+
+    public Type getType() { return type; }
+
+    public Long getNoteId() { return noteId; }
+
+    public NoteSummary getNote() { return note; }
+}
@@ -0,0 +1,346 @@
+package com.albymens.note_app.events;
+
+import com.albymens.note_app.config.ThreadFactories;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-process fan-out of note changes to the Server-Sent Events streams of the owning user.
+ * Events are handed over after the transaction that produced them commits. Each stream has
+ * a bounded buffer drained by a small dispatcher pool; a stream whose buffer fills up,
+ * because its client reads too slowly, is closed so that the client reconnects and reloads
+ * instead of holding memory. A stream whose client stops reading altogether blocks the
+ * socket write of its dispatcher thread; after the send timeout the stream is closed and,
+ * up to a limit of extra threads, another dispatcher thread stands in until the write
+ * returns. Idle streams cost no thread and only receive a periodic keep-alive comment.
+ */
+@Component
+public class NoteEventBus implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventBus.class);
+    private static final long IDLE = Long.MIN_VALUE;
+    private static final long STALLED = Long.MAX_VALUE;
+    private static final long ABANDONED = Long.MAX_VALUE - 1;
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService heartbeat;
+    private final Duration timeout;
+    private final Duration sendTimeout;
+    private final int maxExtraDispatchThreads;
+    private int extraDispatchThreads;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final int coalesceThreshold;
+    private final Counter published;
+    private final Counter evicted;
+
+    public NoteEventBus(MeterRegistry meterRegistry, ThreadFactories threadFactories,
+                        @Value("${notes.events.dispatch-threads:2}") int dispatchThreads,
+                        @Value("${notes.events.buffer-size:64}") int bufferSize,
+                        @Value("${notes.events.max-subscribers-per-user:10}") int maxPerUser,
+                        @Value("${notes.events.coalesce-threshold:20}") int coalesceThreshold,
+                        @Value("${notes.events.heartbeat-interval:30s}") Duration heartbeatInterval,
+                        @Value("${notes.events.timeout:30m}") Duration timeout,
+                        @Value("${notes.events.send-timeout:10s}") Duration sendTimeout,
+                        @Value("${notes.events.max-extra-dispatch-threads:8}") int maxExtraDispatchThreads) {
+        this.bufferSize = bufferSize;
+        this.maxPerUser = maxPerUser;
+        this.coalesceThreshold = coalesceThreshold;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+        this.maxExtraDispatchThreads = maxExtraDispatchThreads;
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactories.blocking("note-events-"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("note-events-heartbeat-"));
+        this.heartbeat.scheduleWithFixedDelay(this::sendHeartbeats,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        long stallCheckInterval = Math.max(1, sendTimeout.toMillis() / 2);
+        this.heartbeat.scheduleWithFixedDelay(this::closeStalledStreams,
+                stallCheckInterval, stallCheckInterval, TimeUnit.MILLISECONDS);
+        this.published = Counter.builder("notes.events.published").register(meterRegistry);
+        this.evicted = Counter.builder("notes.events.evicted").register(meterRegistry);
+        Gauge.builder("notes.events.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of the user's note events. When the user already has the maximum
+     * number of streams open, the oldest one is closed.
+     */
+    public SseEmitter subscribe(Long userId) {
+        return subscribe(userId, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(Long userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter, bufferSize);
+        subscriberCount.incrementAndGet();
+        // Added inside compute so that a concurrent remove cannot drop the list it is added to.
+        List<Subscriber> userSubscribers = subscribers.compute(userId, (id, current) -> {
+            List<Subscriber> updated = current == null ? new CopyOnWriteArrayList<>() : current;
+            updated.add(subscriber);
+            return updated;
+        });
+        while (userSubscribers.size() > maxPerUser) {
+            close(userSubscribers.get(0));
+        }
+
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+        enqueue(subscriber, new Message("ready", null));
+        return subscriber.emitter;
+    }
+
+    public void publish(Long userId, NoteEvent event) {
+        publish(userId, () -> List.of(event));
+    }
+
+    /**
+     * Publishes events once the current transaction commits, or right away outside of one.
+     * The supplier runs after the commit, so entities passed to it carry their flushed
+     * version and timestamps. More than the coalesce threshold of events become a single
+     * {@link NoteEvent.Type#RESYNC}.
+     */
+    public void publish(Long userId, Supplier<List<NoteEvent>> events) {
+        if (!subscribers.containsKey(userId)) {
+            return;
+        }
+        afterCommit(() -> {
+            List<NoteEvent> batch = events.get();
+            if (batch.isEmpty()) {
+                return;
+            }
+            deliver(userId, batch.size() > coalesceThreshold ? List.of(NoteEvent.resync()) : batch);
+        });
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void deliver(Long userId, List<NoteEvent> events) {
+        List<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            for (NoteEvent event : events) {
+                if (!enqueue(subscriber, new Message(event.getType().name().toLowerCase(Locale.ROOT), event))) {
+                    break;
+                }
+            }
+        }
+        published.increment(events.size());
+    }
+
+    private boolean enqueue(Subscriber subscriber, Message message) {
+        if (!subscriber.queue.offer(message)) {
+            logger.info("Closing event stream of user {}: client is not keeping up", subscriber.userId);
+            evicted.increment();
+            close(subscriber);
+            return false;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+        return true;
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Message message;
+            while (!subscriber.closed.get() && (message = subscriber.queue.poll()) != null) {
+                if (message.name() == null) {
+                    send(subscriber, SseEmitter.event().comment("keep-alive"));
+                } else if (message.data() == null) {
+                    send(subscriber, SseEmitter.event().name(message.name()).data(""));
+                } else {
+                    send(subscriber, SseEmitter.event().name(message.name()).data(message.data(), MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Event stream of user {} is gone: {}", subscriber.userId, e.getMessage());
+            remove(subscriber);
+        } finally {
+            // Completing takes the emitter's write lock, so it happens here rather than on the closing thread.
+            if (subscriber.completing.compareAndSet(true, false)) {
+                complete(subscriber);
+            }
+            subscriber.scheduled.set(false);
+            boolean pending = subscriber.closed.get() ? subscriber.completing.get() : !subscriber.queue.isEmpty();
+            if (pending && subscriber.scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        long started = System.nanoTime();
+        subscriber.sendStarted.set(started);
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            if (!subscriber.sendStarted.compareAndSet(started, IDLE) && subscriber.sendStarted.get() == STALLED) {
+                // closeStalledStreams gave up on this send and added a thread in place of this one.
+                removeDispatchThread();
+            }
+        }
+    }
+
+    private void closeStalledStreams() {
+        try {
+            long now = System.nanoTime();
+            subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> {
+                long started = subscriber.sendStarted.get();
+                if (started == IDLE || started == STALLED || started == ABANDONED
+                        || now - started <= sendTimeout.toNanos()) {
+                    return;
+                }
+                boolean added = addDispatchThread();
+                if (!subscriber.sendStarted.compareAndSet(started, added ? STALLED : ABANDONED)) {
+                    if (added) {
+                        removeDispatchThread();
+                    }
+                    return;
+                }
+                logger.info("Closing event stream of user {}: a send has been blocked for over {}{}", subscriber.userId,
+                        sendTimeout, added ? "" : ", no dispatch thread added as the limit of extra threads is reached");
+                evicted.increment();
+                close(subscriber);
+            }));
+        } catch (RuntimeException e) {
+            logger.error("Checking event streams for stalled sends failed", e);
+        }
+    }
+
+    private boolean addDispatchThread() {
+        synchronized (dispatcher) {
+            if (extraDispatchThreads >= maxExtraDispatchThreads) {
+                return false;
+            }
+            extraDispatchThreads++;
+            int size = dispatcher.getCorePoolSize() + 1;
+            dispatcher.setMaximumPoolSize(size);
+            dispatcher.setCorePoolSize(size);
+            return true;
+        }
+    }
+
+    private void removeDispatchThread() {
+        synchronized (dispatcher) {
+            extraDispatchThreads--;
+            int size = dispatcher.getCorePoolSize() - 1;
+            dispatcher.setCorePoolSize(size);
+            dispatcher.setMaximumPoolSize(size);
+        }
+    }
+
+    private void sendHeartbeats() {
+        try {
+            subscribers.values().forEach(userSubscribers ->
+                    userSubscribers.forEach(subscriber -> enqueue(subscriber, new Message(null, null))));
+        } catch (RuntimeException e) {
+            logger.error("Sending event stream keep-alives failed", e);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            subscriber.completing.set(true);
+            if (subscriber.scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void complete(Subscriber subscriber) {
+        try {
+            subscriber.emitter.complete();
+        } catch (RuntimeException e) {
+            logger.debug("Completing event stream of user {} failed: {}", subscriber.userId, e.getMessage());
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+        subscriber.queue.clear();
+        return true;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(this::close));
+        dispatcher.shutdown();
+    }
+
+    private record Message(String name, Object data) {
+    }
+
+    private static final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<Message> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completing = new AtomicBoolean();
+        private final AtomicLong sendStarted = new AtomicLong(IDLE);
+
+        Subscriber(Long userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.albymens.note_app.exception;
 
 import com.albymens.note_app.dto.ApiResult;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -47,6 +48,27 @@ public class GlobalHandlerException {
         );
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiResult> preconditionFailedException(PreconditionFailedException exception){
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(
+                new ApiResult(false, exception.getMessage(), null)
+        );
+    }
+
+    @ExceptionHandler(SyncTokenExpiredException.class)
+    public ResponseEntity<ApiResult> syncTokenExpiredException(SyncTokenExpiredException exception){
+        return ResponseEntity.status(HttpStatus.GONE).body(
+                new ApiResult(false, exception.getMessage(), null)
+        );
+    }
+
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<ApiResult> serverBusyException(ServerBusyException exception){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResult(false, exception.getMessage(), null));
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
     @ResponseBody
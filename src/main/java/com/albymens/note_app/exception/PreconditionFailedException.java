@@ -0,0 +1,11 @@
+package com.albymens.note_app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException{
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.albymens.note_app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServerBusyException extends RuntimeException{
+    public ServerBusyException(String message) {
+        super(message);
+    }
+}
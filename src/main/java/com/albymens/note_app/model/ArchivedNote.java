@@ -0,0 +1,98 @@
+package com.albymens.note_app.model;
+
+import com.albymens.note_app.model.converter.TagConverter;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A note that stayed soft-deleted past the retention period, moved out of {@code notes}
+ * together with its stored body so that it can still be restored.
+ */
+@Entity
+@Table(name = "notes_archive", indexes = @Index(name = "idx_notes_archive_user_id", columnList = "user_id"))
+public class ArchivedNote {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = TagConverter.class)
+    private List<String> tags;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer version;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+
+    private String excerpt;
+
+    @Column(nullable = false)
+    private int contentLength;
+
+    @Column(columnDefinition = "BLOB")
+    private byte[] content;
+
+    @Column(nullable = false)
+    private Instant archivedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+}
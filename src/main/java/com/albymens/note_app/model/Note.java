@@ -1,22 +1,33 @@
 package com.albymens.note_app.model;
 
+import com.albymens.note_app.model.converter.CompressedTextConverter;
 import com.albymens.note_app.model.converter.TagConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
 @Table(name = "notes")
+@SecondaryTable(name = "note_bodies", pkJoinColumns = @PrimaryKeyJoinColumn(name = "note_id"))
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "notes")
 public class Note {
 
+    public static final int EXCERPT_LENGTH = 200;
+
     @Id
-   @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+    @SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Title is required")
@@ -25,12 +36,24 @@ public class Note {
     private String title;
 
     @Size(min = 3)
+    @Column(table = "note_bodies", columnDefinition = "BLOB")
+    @Convert(converter = CompressedTextConverter.class)
     private String content;
 
+    private String excerpt;
+
+    @Column(nullable = false)
+    private int contentLength;
+
     @Column(columnDefinition = "TEXT")
     @Convert(converter = TagConverter.class)
     private List<String> tags;
 
+    @ElementCollection
+    @CollectionTable(name = "note_tags", joinColumns = @JoinColumn(name = "note_id"))
+    @Column(name = "tag", nullable = false)
+    private Set<String> tagIndex = new HashSet<>();
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -44,6 +67,10 @@ public class Note {
 
     private Instant deletedAt;
 
+    @Version
+    @Column(nullable = false)
+    private Integer version;
+
     public Long getId() {
         return id;
     }
@@ -66,6 +93,33 @@ public class Note {
 
     public void setContent(String content) {
         this.content = content;
+        this.excerpt = excerptOf(content);
+        this.contentLength = content != null ? content.length() : 0;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Returns the start of the content with whitespace collapsed, cut back to the last word
+     * boundary when it is longer than {@link #EXCERPT_LENGTH} characters.
+     */
+    public static String excerptOf(String content) {
+        if (content == null) {
+            return null;
+        }
+
+        String text = content.strip().replaceAll("\\s+", " ");
+        if (text.length() <= EXCERPT_LENGTH) {
+            return text;
+        }
+        int end = text.lastIndexOf(' ', EXCERPT_LENGTH);
+        return text.substring(0, end > EXCERPT_LENGTH / 2 ? end : EXCERPT_LENGTH) + "\u2026";
     }
 
     @PrePersist
@@ -119,12 +173,22 @@ public class Note {
         this.deletedAt = deletedAt;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     public List<String> getTags() {
         return tags;
     }
 
     public void setTags(List<String> tags) {
         this.tags = tags;
+        this.tagIndex.clear();
+        this.tagIndex.addAll(TagConverter.normalizeTags(tags));
     }
 
 }
@@ -1,9 +1,15 @@
 package com.albymens.note_app.model;
 
+import com.albymens.note_app.model.listener.UserCacheListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 
 import java.time.Instant;
@@ -15,7 +21,10 @@ import java.util.List;
         @UniqueConstraint(columnNames = "email"),
         @UniqueConstraint(columnNames = "username")
 })
-
+@EntityListeners(UserCacheListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-natural-id")
 public class User {
 
     @Id
@@ -29,6 +38,7 @@ public class User {
     @Size(max = 50)
     private String email;
 
+    @NaturalId
     @Column(nullable = false, unique = true)
     @Size(max = 20)
     @NotBlank(message = "Username is required")
@@ -44,6 +54,7 @@ public class User {
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Note> notes = new ArrayList<>();
 
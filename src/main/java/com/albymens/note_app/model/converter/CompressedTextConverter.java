@@ -0,0 +1,67 @@
+package com.albymens.note_app.model.converter;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores text as UTF-8 bytes, gzip-compressing values above {@link #COMPRESSION_THRESHOLD}
+ * bytes when that makes them smaller. Reading accepts both forms: gzip data is recognised by
+ * its magic header, which can never start a valid UTF-8 string, so plain and compressed rows
+ * can live side by side.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    public static final int COMPRESSION_THRESHOLD = 1024;
+
+    private static final byte GZIP_MAGIC_FIRST = (byte) 0x1f;
+    private static final byte GZIP_MAGIC_SECOND = (byte) 0x8b;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+        if (plain.length <= COMPRESSION_THRESHOLD) {
+            return plain;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(plain.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(plain);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error compressing note content", e);
+        }
+        return compressed.size() < plain.length ? compressed.toByteArray() : plain;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!isCompressed(data)) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error decompressing note content", e);
+        }
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        return data.length > 1 && data[0] == GZIP_MAGIC_FIRST && data[1] == GZIP_MAGIC_SECOND;
+    }
+}
@@ -0,0 +1,21 @@
+package com.albymens.note_app.model.listener;
+
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.service.UserCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class UserCacheListener {
+
+    @Autowired
+    private UserCache userCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        userCache.evict(user);
+    }
+}
@@ -0,0 +1,197 @@
+package com.albymens.note_app.reactive;
+
+import com.albymens.note_app.controller.NoteETags;
+import com.albymens.note_app.dto.ApiResult;
+import com.albymens.note_app.dto.NoteCursor;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.dto.PageResponse;
+import com.albymens.note_app.exception.IllegalArgumentsException;
+import com.albymens.note_app.repository.projection.NoteVersion;
+import com.albymens.note_app.repository.specification.TagMatch;
+import com.albymens.note_app.service.JwtService;
+import com.albymens.note_app.service.NoteAutosaveBuffer;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Handlers of the reactive read API. Parameters, response bodies and cache validators match
+ * the corresponding {@link com.albymens.note_app.controller.NoteController} endpoints so
+ * that clients can switch between the two by changing the port.
+ */
+public class ReactiveNoteHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveNoteHandler.class);
+
+    private static final String USER_ATTRIBUTE = ReactiveNoteHandler.class.getName() + ".user";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ReactiveNoteReader reader;
+    private final NoteAutosaveBuffer noteAutosaveBuffer;
+
+    public ReactiveNoteHandler(ReactiveNoteReader reader, NoteAutosaveBuffer noteAutosaveBuffer) {
+        this.reader = reader;
+        this.noteAutosaveBuffer = noteAutosaveBuffer;
+    }
+
+    public Mono<ServerResponse> searchNotes(ServerRequest request) {
+        AuthenticatedUser user = user(request);
+        List<String> tags = listParam(request, "tags");
+        TagMatch tagMatch = TagMatch.from(request.queryParam("tagMatch").orElse("any"));
+        String searchTerm = request.queryParam("searchTerm").orElse(null);
+        int size = intParam(request, "size", 10);
+        String[] sort = request.queryParam("sort").orElse("createdAt,desc").split(",");
+        if (sort.length != 2) {
+            throw new IllegalArgumentsException("sort must be a property and a direction, for example createdAt,desc");
+        }
+        Sort.Direction direction = Sort.Direction.fromString(sort[1]);
+
+        String cursor = request.queryParam("cursor").orElse(null);
+        if (cursor != null) {
+            NoteCursor noteCursor = cursor.isBlank() ? NoteCursor.first(sort[0], direction) : NoteCursor.decode(cursor);
+            return reader.search(user.id(), tags, tagMatch, searchTerm, noteCursor, size)
+                    .flatMap(page -> ServerResponse.ok()
+                            .bodyValue(new ApiResult(true, "Notes retrieved successfully", page)));
+        }
+
+        PageRequest pageable = PageRequest.of(intParam(request, "page", 0), size, Sort.by(direction, sort[0]));
+        return reader.search(user.id(), tags, tagMatch, searchTerm, pageable).flatMap(page -> {
+            if (page.stream().anyMatch(note -> noteAutosaveBuffer.isPendingFor(note.getId(), user.id()))) {
+                return ServerResponse.ok()
+                        .cacheControl(CacheControl.noStore())
+                        .bodyValue(new ApiResult(true, "Notes retrieved successfully", new PageResponse<>(page)));
+            }
+            String eTag = NoteETags.forPage(page.map(ReactiveNoteHandler::version));
+            return request.checkNotModified(eTag).switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .eTag(eTag)
+                    .bodyValue(new ApiResult(true, "Notes retrieved successfully", new PageResponse<>(page)))));
+        });
+    }
+
+    public Mono<ServerResponse> getNote(ServerRequest request) {
+        AuthenticatedUser user = user(request);
+        Long id = parseId(request.pathVariable("id"));
+        return reader.findNote(user.id(), user.username(), id).flatMap(note -> {
+            if (noteAutosaveBuffer.isPendingFor(id, user.id())) {
+                return ServerResponse.ok()
+                        .cacheControl(CacheControl.noStore())
+                        .bodyValue(new ApiResult(true, "Note retrieved successfully", note));
+            }
+            NoteVersion version = new NoteVersion(note.getId(), note.getVersion(), note.getUpdatedAt());
+            String eTag = NoteETags.forNote(version);
+            long lastModified = NoteETags.lastModified(version);
+            Instant modified = lastModified < 0 ? null : Instant.ofEpochMilli(lastModified);
+            return (modified == null ? request.checkNotModified(eTag) : request.checkNotModified(modified, eTag))
+                    .switchIfEmpty(Mono.defer(() -> {
+                        ServerResponse.BodyBuilder response = ServerResponse.ok()
+                                .cacheControl(CacheControl.noCache().cachePrivate())
+                                .eTag(eTag);
+                        if (modified != null) {
+                            response.lastModified(modified);
+                        }
+                        return response.bodyValue(new ApiResult(true, "Note retrieved successfully", note));
+                    }));
+        });
+    }
+
+    public Mono<ServerResponse> getActiveNotes(ServerRequest request) {
+        AuthenticatedUser user = user(request);
+        return reader.findActiveNotes(user.id()).flatMap(notes -> ServerResponse.ok()
+                .bodyValue(new ApiResult(true, "Notes retrieved successfully", notes)));
+    }
+
+    /**
+     * Authenticates requests with the same bearer tokens as the servlet API, taking the user
+     * from the verified claims so that no request has to wait on the user table.
+     */
+    public static HandlerFilterFunction<ServerResponse, ServerResponse> authentication(JwtService jwtService) {
+        return (request, next) -> {
+            String header = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+            Claims claims = header != null && header.startsWith(BEARER_PREFIX)
+                    ? jwtService.verifyToken(header.substring(BEARER_PREFIX.length()))
+                    : null;
+            // The JSON deserializer may hand numeric claims back as any Number type.
+            Number userId = claims == null ? null : claims.get("userId", Number.class);
+            if (userId == null) {
+                return error(HttpStatus.UNAUTHORIZED, "Unauthorized");
+            }
+            request.attributes().put(USER_ATTRIBUTE, new AuthenticatedUser(userId.longValue(), claims.getSubject()));
+            return next.handle(request);
+        };
+    }
+
+    /**
+     * Turns exceptions into the {@link ApiResult} error bodies of
+     * {@link com.albymens.note_app.exception.GlobalHandlerException}, with the status
+     * declared on the exception.
+     */
+    public static HandlerFilterFunction<ServerResponse, ServerResponse> errorHandling() {
+        return (request, next) -> Mono.defer(() -> next.handle(request)).onErrorResume(e -> {
+            ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class);
+            if (status != null) {
+                return error(status.code(), e.getMessage());
+            }
+            if (e instanceof IllegalArgumentException) {
+                return error(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            logger.error("Reactive request {} {} failed", request.method(), request.path(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Request failed");
+        });
+    }
+
+    private static Mono<ServerResponse> error(HttpStatusCode status, String message) {
+        return ServerResponse.status(status).bodyValue(new ApiResult(false, message, null));
+    }
+
+    private static AuthenticatedUser user(ServerRequest request) {
+        return (AuthenticatedUser) request.attribute(USER_ATTRIBUTE).orElseThrow();
+    }
+
+    private static NoteVersion version(NoteSummary note) {
+        return new NoteVersion(note.getId(), note.getVersion(), note.getUpdatedAt());
+    }
+
+    private static List<String> listParam(ServerRequest request, String name) {
+        return request.queryParams().getOrDefault(name, List.of()).stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .toList();
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(value -> {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentsException("Invalid " + name + ": " + value);
+            }
+        }).orElse(defaultValue);
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentsException("Invalid note id: " + value);
+        }
+    }
+
+    private record AuthenticatedUser(Long id, String username) {
+    }
+}
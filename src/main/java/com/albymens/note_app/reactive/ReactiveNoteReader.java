@@ -0,0 +1,283 @@
+package com.albymens.note_app.reactive;
+
+import com.albymens.note_app.dto.CursorPageResponse;
+import com.albymens.note_app.dto.NoteCursor;
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.exception.IllegalArgumentsException;
+import com.albymens.note_app.exception.ResourceNotFoundException;
+import com.albymens.note_app.model.converter.CompressedTextConverter;
+import com.albymens.note_app.model.converter.TagConverter;
+import com.albymens.note_app.repository.specification.TagMatch;
+import com.albymens.note_app.search.NoteSearchIndex;
+import com.albymens.note_app.service.NoteAutosaveBuffer;
+import com.albymens.note_app.sharding.ShardRouter;
+import io.r2dbc.spi.Readable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Reads notes over R2DBC with the filters of
+ * {@link com.albymens.note_app.repository.specification.NoteSpecification}: the active notes
+ * of one user, optionally limited to notes having any or all of a set of tags and to the ids
+ * {@link NoteSearchIndex} matches for a search term. Pending autosave edits are overlaid the
+ * same way as on the servlet path.
+ */
+public class ReactiveNoteReader {
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "n.id",
+            "title", "n.title",
+            "createdAt", "n.created_at",
+            "updatedAt", "n.updated_at");
+
+    private static final String SUMMARY_COLUMNS = "n.id, n.title, CAST(n.tags AS VARCHAR) AS tags, n.excerpt, " +
+            "n.content_length, n.created_at, n.updated_at, n.version";
+
+    private final ReactiveShards shards;
+    private final ShardRouter shardRouter;
+    private final NoteSearchIndex noteSearchIndex;
+    private final NoteAutosaveBuffer noteAutosaveBuffer;
+    private final TagConverter tagConverter = new TagConverter();
+    private final CompressedTextConverter contentConverter = new CompressedTextConverter();
+
+    public ReactiveNoteReader(ReactiveShards shards, ShardRouter shardRouter, NoteSearchIndex noteSearchIndex,
+                              NoteAutosaveBuffer noteAutosaveBuffer) {
+        this.shards = shards;
+        this.shardRouter = shardRouter;
+        this.noteSearchIndex = noteSearchIndex;
+        this.noteAutosaveBuffer = noteAutosaveBuffer;
+    }
+
+    public Mono<Page<NoteSummary>> search(Long userId, List<String> tags, TagMatch tagMatch, String searchTerm,
+                                          Pageable pageable) {
+        String orderBy = orderBy(pageable.getSort());
+        return filter(userId, tags, tagMatch, searchTerm).flatMap(filter -> {
+            if (filter.matchesNothing()) {
+                return Mono.just(new PageImpl<>(List.of(), pageable, 0));
+            }
+            return onShard(userId, client -> {
+                Map<String, Object> bindings = new HashMap<>(filter.bindings());
+                bindings.put("limit", pageable.getPageSize());
+                bindings.put("offset", pageable.getOffset());
+                return client.sql("SELECT " + SUMMARY_COLUMNS + " FROM notes n WHERE " + filter.where()
+                                + orderBy + " LIMIT :limit OFFSET :offset")
+                        .bindValues(bindings)
+                        .map(this::summary)
+                        .all()
+                        .collectList()
+                        .flatMap(notes -> total(client, filter, pageable, notes.size())
+                                .map(total -> new PageImpl<>(overlay(notes, userId), pageable, total)));
+            });
+        });
+    }
+
+    public Mono<CursorPageResponse<NoteSummary>> search(Long userId, List<String> tags, TagMatch tagMatch,
+                                                        String searchTerm, NoteCursor cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentsException("size must be at least 1");
+        }
+        String sortColumn = SORT_COLUMNS.get(cursor.getSortBy());
+        String direction = cursor.getDirection().isAscending() ? "ASC" : "DESC";
+        return filter(userId, tags, tagMatch, searchTerm).flatMap(filter -> {
+            if (filter.matchesNothing()) {
+                return Mono.just(new CursorPageResponse<>(List.of(), size, null));
+            }
+            Map<String, Object> bindings = new HashMap<>(filter.bindings());
+            StringBuilder where = new StringBuilder(filter.where());
+            if (!cursor.isFirst()) {
+                String comparison = cursor.getDirection().isAscending() ? ">" : "<";
+                where.append(" AND (").append(sortColumn).append(' ').append(comparison).append(" :sortKey OR (")
+                        .append(sortColumn).append(" = :sortKey AND n.id ").append(comparison).append(" :cursorId))");
+                bindings.put("sortKey", LocalDateTime.ofInstant(cursor.getSortKey(), ZoneId.systemDefault()));
+                bindings.put("cursorId", cursor.getId());
+            }
+            bindings.put("limit", size + 1);
+            return onShard(userId, client -> client.sql("SELECT " + SUMMARY_COLUMNS + " FROM notes n WHERE " + where
+                            + " ORDER BY " + sortColumn + " " + direction + ", n.id " + direction + " LIMIT :limit")
+                    .bindValues(bindings)
+                    .map(this::summary)
+                    .all()
+                    .collectList())
+                    .map(notes -> {
+                        String nextCursor = null;
+                        if (notes.size() > size) {
+                            notes = notes.subList(0, size);
+                            NoteSummary last = notes.get(size - 1);
+                            Instant sortKey = "updatedAt".equals(cursor.getSortBy()) ? last.getUpdatedAt() : last.getCreatedAt();
+                            nextCursor = cursor.next(sortKey, last.getId()).encode();
+                        }
+                        return new CursorPageResponse<>(overlay(notes, userId), size, nextCursor);
+                    });
+        });
+    }
+
+    public Mono<List<NoteSummary>> findActiveNotes(Long userId) {
+        return onShard(userId, client -> client.sql("SELECT " + SUMMARY_COLUMNS + " FROM notes n " +
+                        "WHERE n.user_id = :userId AND n.deleted_at IS NULL ORDER BY n.id")
+                .bind("userId", userId)
+                .map(this::summary)
+                .all()
+                .collectList())
+                .map(notes -> overlay(notes, userId));
+    }
+
+    /**
+     * Returns one of the user's notes with its content. Unlike the servlet path, notes of
+     * other users are reported as not found.
+     */
+    public Mono<NoteDto> findNote(Long userId, String username, Long noteId) {
+        return onShard(userId, client -> client.sql("SELECT n.id, n.title, CAST(b.content AS VARBINARY) AS content, " +
+                        "CAST(n.tags AS VARCHAR) AS tags, n.created_at, n.updated_at, n.version " +
+                        "FROM notes n LEFT JOIN note_bodies b ON b.note_id = n.id " +
+                        "WHERE n.id = :id AND n.user_id = :userId")
+                .bind("id", noteId)
+                .bind("userId", userId)
+                .map(row -> new NoteDto(
+                        row.get("id", Long.class),
+                        row.get("title", String.class),
+                        contentConverter.convertToEntityAttribute(row.get("content", byte[].class)),
+                        tagConverter.convertToEntityAttribute(row.get("tags", String.class)),
+                        username,
+                        instant(row, "created_at"),
+                        instant(row, "updated_at"),
+                        row.get("version", Integer.class)))
+                .one())
+                .map(note -> noteAutosaveBuffer.overlay(note, userId))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Note not found with id: " + noteId)));
+    }
+
+    /**
+     * Runs the query on the user's shard, registered with the {@link ShardRouter} so that a
+     * shard move waits for it. Resolving the shard can read the shard directory over JDBC, and
+     * a blocking driver executes the whole query on the subscribing thread, so in either case
+     * the work is moved off the event loop.
+     */
+    private <T> Mono<T> onShard(Long userId, Function<DatabaseClient, Mono<T>> query) {
+        Mono<T> result = Mono.usingWhen(Mono.fromCallable(() -> shardRouter.acquire(userId)),
+                current -> query.apply(shards.client(current)),
+                current -> Mono.fromRunnable(() -> shardRouter.release(userId)));
+        if (shards.isBlocking() || shardRouter.shardCount() > 1) {
+            result = result.subscribeOn(Schedulers.boundedElastic());
+        }
+        return result;
+    }
+
+    private Mono<Filter> filter(Long userId, List<String> tags, TagMatch tagMatch, String searchTerm) {
+        if (!StringUtils.hasText(searchTerm)) {
+            return Mono.just(Filter.of(userId, tags, tagMatch, null));
+        }
+        return matchingIds(userId, searchTerm)
+                .map(ids -> Filter.of(userId, tags, tagMatch, ids))
+                .defaultIfEmpty(Filter.of(userId, tags, tagMatch, null));
+    }
+
+    private Mono<Set<Long>> matchingIds(Long userId, String searchTerm) {
+        if (noteSearchIndex.isLoaded(userId)) {
+            return Mono.justOrEmpty(noteSearchIndex.search(userId, searchTerm));
+        }
+        // The first search of a user builds their index from the database over JDBC.
+        return Mono.fromCallable(() -> shardRouter.callAs(userId, () -> noteSearchIndex.search(userId, searchTerm)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Long> total(DatabaseClient client, Filter filter, Pageable pageable, int returned) {
+        if (returned < pageable.getPageSize() && (returned > 0 || pageable.getOffset() == 0)) {
+            return Mono.just(pageable.getOffset() + returned);
+        }
+        return client.sql("SELECT COUNT(*) AS total FROM notes n WHERE " + filter.where())
+                .bindValues(filter.bindings())
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+
+    private NoteSummary summary(Readable row) {
+        Integer contentLength = row.get("content_length", Integer.class);
+        return new NoteSummary(
+                row.get("id", Long.class),
+                row.get("title", String.class),
+                tagConverter.convertToEntityAttribute(row.get("tags", String.class)),
+                row.get("excerpt", String.class),
+                contentLength == null ? 0 : contentLength,
+                instant(row, "created_at"),
+                instant(row, "updated_at"),
+                row.get("version", Integer.class));
+    }
+
+    private List<NoteSummary> overlay(List<NoteSummary> notes, Long userId) {
+        notes.forEach(note -> noteAutosaveBuffer.overlay(note, userId));
+        return notes;
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentsException("Cannot sort notes by " + order.getProperty()
+                        + ", use one of " + SORT_COLUMNS.keySet());
+            }
+            orderBy.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return orderBy.toString();
+    }
+
+    // Timestamps are stored without a zone, in the JVM's zone, as Hibernate writes them.
+    private static Instant instant(Readable row, String column) {
+        Object value = row.get(column);
+        if (value instanceof LocalDateTime local) {
+            return local.atZone(ZoneId.systemDefault()).toInstant();
+        }
+        if (value instanceof OffsetDateTime offset) {
+            return offset.toInstant();
+        }
+        return (Instant) value;
+    }
+
+    private record Filter(String where, Map<String, Object> bindings, boolean matchesNothing) {
+
+        static Filter of(Long userId, List<String> tags, TagMatch tagMatch, Set<Long> matchingIds) {
+            StringBuilder where = new StringBuilder("n.user_id = :userId AND n.deleted_at IS NULL");
+            Map<String, Object> bindings = new HashMap<>();
+            bindings.put("userId", userId);
+
+            List<String> normalizedTags = TagConverter.normalizeTags(tags);
+            if (!normalizedTags.isEmpty()) {
+                where.append(" AND n.id IN (SELECT t.note_id FROM note_tags t WHERE t.tag IN (:tags)");
+                if (tagMatch == TagMatch.ALL) {
+                    where.append(" GROUP BY t.note_id HAVING COUNT(t.tag) = :tagCount");
+                    bindings.put("tagCount", normalizedTags.size());
+                }
+                where.append(')');
+                bindings.put("tags", normalizedTags);
+            }
+
+            if (matchingIds != null && !matchingIds.isEmpty()) {
+                where.append(" AND n.id IN (:ids)");
+                bindings.put("ids", new ArrayList<>(matchingIds));
+            }
+            return new Filter(where.toString(), Map.copyOf(bindings), matchingIds != null && matchingIds.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.albymens.note_app.reactive;
+
+import com.albymens.note_app.search.NoteSearchIndex;
+import com.albymens.note_app.service.JwtService;
+import com.albymens.note_app.service.NoteAutosaveBuffer;
+import com.albymens.note_app.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+
+/**
+ * With {@code notes.reactive.enabled=true}, serves {@code GET /api/notes/search},
+ * {@code GET /api/notes/{id}} and {@code GET /api/notes} a second time from a WebFlux
+ * server on {@code notes.reactive.port}, reading over R2DBC instead of JPA. Writes and every
+ * other endpoint stay on the servlet API.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notes.reactive.enabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReactiveShards reactiveShards(DataSourceProperties dataSourceProperties, Environment environment,
+                                         @Value("${notes.sharding.enabled:false}") boolean sharded,
+                                         @Value("${notes.reactive.pool.max-size:20}") int maxPoolSize,
+                                         @Value("${notes.reactive.pool.max-idle-time:30m}") Duration maxIdleTime) {
+        List<ConnectionFactoryOptions> shards = new ArrayList<>();
+        shards.add(ReactiveShards.options(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword()));
+        if (sharded) {
+            List<DataSourceProperties> extraShards = Binder.get(environment)
+                    .bind("notes.sharding.shards", Bindable.listOf(DataSourceProperties.class))
+                    .orElse(List.of());
+            for (DataSourceProperties shard : extraShards) {
+                shards.add(ReactiveShards.options(shard.getUrl(), shard.getUsername(), shard.getPassword()));
+            }
+        }
+        return new ReactiveShards(shards, maxPoolSize, maxIdleTime);
+    }
+
+    @Bean
+    public ReactiveNoteReader reactiveNoteReader(ReactiveShards reactiveShards, ShardRouter shardRouter,
+                                                 NoteSearchIndex noteSearchIndex, NoteAutosaveBuffer noteAutosaveBuffer) {
+        return new ReactiveNoteReader(reactiveShards, shardRouter, noteSearchIndex, noteAutosaveBuffer);
+    }
+
+    @Bean
+    public ReactiveReadServer reactiveReadServer(ReactiveNoteReader reactiveNoteReader, NoteAutosaveBuffer noteAutosaveBuffer,
+                                                 JwtService jwtService, ObjectMapper objectMapper,
+                                                 @Value("${notes.reactive.port:8081}") int port) {
+        ReactiveNoteHandler handler = new ReactiveNoteHandler(reactiveNoteReader, noteAutosaveBuffer);
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .GET("/api/notes/search", handler::searchNotes)
+                .GET("/api/notes/{id}", handler::getNote)
+                .route(GET("/api/notes").or(GET("/api/notes/")), handler::getActiveNotes)
+                .filter(ReactiveNoteHandler.errorHandling())
+                .filter(ReactiveNoteHandler.authentication(jwtService))
+                .build();
+
+        // The application's ObjectMapper keeps the JSON identical to the servlet API's.
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper, MediaType.APPLICATION_JSON));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper, MediaType.APPLICATION_JSON));
+                })
+                .build();
+        return new ReactiveReadServer(RouterFunctions.toHttpHandler(routes, strategies), port);
+    }
+}
@@ -0,0 +1,46 @@
+package com.albymens.note_app.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+
+/**
+ * Netty server for the reactive read API, running next to the servlet container on its
+ * own port. Requests are served on Reactor Netty's event loops.
+ */
+public class ReactiveReadServer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveReadServer.class);
+
+    private final WebServer webServer;
+    private volatile boolean running;
+
+    public ReactiveReadServer(HttpHandler httpHandler, int port) {
+        this.webServer = new NettyReactiveWebServerFactory(port).getWebServer(httpHandler);
+    }
+
+    @Override
+    public void start() {
+        webServer.start();
+        running = true;
+        logger.info("Reactive note reads listening on port {}", webServer.getPort());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        webServer.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getPort() {
+        return webServer.getPort();
+    }
+}
@@ -0,0 +1,98 @@
+package com.albymens.note_app.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * R2DBC clients of all shards, indexed by shard number, opened against the same databases as
+ * the JDBC pools. Shards behind a networked driver are pooled.
+ */
+public class ReactiveShards implements AutoCloseable {
+
+    private static final String H2_PREFIX = "jdbc:h2:";
+
+    private final List<ConnectionPool> pools = new ArrayList<>();
+    private final List<DatabaseClient> clients = new ArrayList<>();
+    private final boolean blocking;
+
+    public ReactiveShards(List<ConnectionFactoryOptions> shards, int maxPoolSize, Duration maxIdleTime) {
+        this.blocking = shards.stream().anyMatch(ReactiveShards::isH2);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            ConnectionFactory connectionFactory = ConnectionFactories.get(shards.get(shard));
+            // r2dbc-h2 connections are sessions of the in-process engine and cost next to nothing
+            // to open, while r2dbc-pool loses acquires when bursts of them race with releases.
+            if (isH2(shards.get(shard))) {
+                clients.add(DatabaseClient.create(connectionFactory));
+                continue;
+            }
+            ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration
+                    .builder(connectionFactory)
+                    .name("reactive-shard-" + shard)
+                    .initialSize(1)
+                    .maxSize(maxPoolSize)
+                    .maxIdleTime(maxIdleTime)
+                    .build());
+            pools.add(pool);
+            clients.add(DatabaseClient.create(pool));
+        }
+    }
+
+    /**
+     * Derives R2DBC options from a JDBC url. H2 urls are handed to r2dbc-h2 as they are, so
+     * both drivers open the same in-process database; other urls only swap the scheme.
+     */
+    public static ConnectionFactoryOptions options(String jdbcUrl, String username, String password) {
+        ConnectionFactoryOptions.Builder options;
+        if (jdbcUrl.startsWith(H2_PREFIX)) {
+            options = ConnectionFactoryOptions.builder()
+                    .option(ConnectionFactoryOptions.DRIVER, "h2")
+                    .option(Option.valueOf("url"), jdbcUrl.substring(H2_PREFIX.length()));
+        } else if (jdbcUrl.startsWith("jdbc:")) {
+            options = ConnectionFactoryOptions.parse("r2dbc:" + jdbcUrl.substring("jdbc:".length())).mutate();
+        } else {
+            throw new IllegalStateException("Cannot derive an R2DBC url from " + jdbcUrl);
+        }
+        if (StringUtils.hasText(username)) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (StringUtils.hasText(password)) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        return options.build();
+    }
+
+    public DatabaseClient client(int shard) {
+        return clients.get(shard);
+    }
+
+    /**
+     * Whether queries run to completion on the subscribing thread, as they do with r2dbc-h2,
+     * which wraps the blocking H2 engine.
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    private static boolean isH2(ConnectionFactoryOptions options) {
+        return "h2".equals(options.getValue(ConnectionFactoryOptions.DRIVER));
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(ConnectionPool::dispose);
+    }
+}
@@ -0,0 +1,50 @@
+package com.albymens.note_app.repository;
+
+import com.albymens.note_app.model.ArchivedNote;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedNoteRepository extends JpaRepository<ArchivedNote, Long> {
+
+    Optional<ArchivedNote> findByIdAndUserId(Long id, Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notes_archive"))
+    @Query(value = "INSERT INTO notes_archive (id, title, tags, user_id, version, created_at, updated_at, deleted_at, " +
+            "excerpt, content_length, content, archived_at) " +
+            "SELECT n.id, n.title, n.tags, n.user_id, n.version, n.created_at, n.updated_at, n.deleted_at, " +
+            "n.excerpt, n.content_length, b.content, :now " +
+            "FROM notes n LEFT JOIN note_bodies b ON b.note_id = n.id WHERE n.id IN (:ids) AND n.deleted_at < :cutoff",
+            nativeQuery = true)
+    int archive(@Param("ids") Collection<Long> ids, @Param("cutoff") Instant cutoff, @Param("now") Instant now);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notes"))
+    @Query(value = "INSERT INTO notes (id, title, tags, user_id, version, created_at, updated_at, deleted_at, " +
+            "excerpt, content_length) " +
+            "SELECT a.id, a.title, a.tags, a.user_id, a.version + 1, a.created_at, :now, NULL, " +
+            "a.excerpt, a.content_length FROM notes_archive a WHERE a.id = :id AND a.user_id = :userId", nativeQuery = true)
+    int restoreNote(@Param("id") Long id, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "note_bodies"))
+    @Query(value = "INSERT INTO note_bodies (note_id, content) " +
+            "SELECT a.id, a.content FROM notes_archive a WHERE a.id = :id AND a.content IS NOT NULL", nativeQuery = true)
+    int restoreBody(@Param("id") Long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notes_archive"))
+    @Query(value = "DELETE FROM notes_archive WHERE id = :id", nativeQuery = true)
+    int deleteArchived(@Param("id") Long id);
+}
@@ -0,0 +1,24 @@
+package com.albymens.note_app.repository;
+
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.repository.projection.NoteVersion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface NoteProjectionRepository {
+
+    Optional<NoteDto> findDtoById(Long id, Long userId);
+
+    Page<NoteSummary> findSummaries(Specification<Note> spec, Pageable pageable);
+
+    List<NoteSummary> findSummaries(Specification<Note> spec, Sort sort, int limit);
+
+    Optional<NoteVersion> findVersionById(Long id, Long userId);
+}
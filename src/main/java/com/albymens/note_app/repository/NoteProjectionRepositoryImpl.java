@@ -0,0 +1,136 @@
+package com.albymens.note_app.repository;
+
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.projection.NoteVersion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read paths that select straight into DTOs, so no Note entities are hydrated and the lazy
+ * user association is never initialised. Only the single-note read selects the content;
+ * list queries return {@link NoteSummary} rows built from the notes table alone.
+ */
+public class NoteProjectionRepositoryImpl implements NoteProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<NoteDto> findDtoById(Long id, Long userId) {
+        return createQuery(NoteDto.class, byIdAndUser(id, userId), Sort.unsorted(), (root, criteriaBuilder) -> {
+            Join<Note, User> user = root.join("user");
+            return criteriaBuilder.construct(NoteDto.class,
+                    root.get("id"),
+                    root.get("title"),
+                    root.get("content"),
+                    root.get("tags"),
+                    user.get("username"),
+                    root.get("createdAt"),
+                    root.get("updatedAt"),
+                    root.get("version"));
+        }).getResultStream().findFirst();
+    }
+
+    @Override
+    public Page<NoteSummary> findSummaries(Specification<Note> spec, Pageable pageable) {
+        return page(createSummaryQuery(spec, pageable.getSort()), spec, pageable);
+    }
+
+    @Override
+    public List<NoteSummary> findSummaries(Specification<Note> spec, Sort sort, int limit) {
+        return createSummaryQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Optional<NoteVersion> findVersionById(Long id, Long userId) {
+        return createVersionQuery(byIdAndUser(id, userId), Sort.unsorted()).getResultStream().findFirst();
+    }
+
+    private TypedQuery<NoteSummary> createSummaryQuery(Specification<Note> spec, Sort sort) {
+        return createQuery(NoteSummary.class, spec, sort, (root, criteriaBuilder) ->
+                criteriaBuilder.construct(NoteSummary.class,
+                        root.get("id"),
+                        root.get("title"),
+                        root.get("tags"),
+                        root.get("excerpt"),
+                        root.get("contentLength"),
+                        root.get("createdAt"),
+                        root.get("updatedAt"),
+                        root.get("version")));
+    }
+
+    private TypedQuery<NoteVersion> createVersionQuery(Specification<Note> spec, Sort sort) {
+        return createQuery(NoteVersion.class, spec, sort, (root, criteriaBuilder) ->
+                criteriaBuilder.construct(NoteVersion.class,
+                        root.get("id"),
+                        root.get("version"),
+                        root.get("updatedAt")));
+    }
+
+    private <T> TypedQuery<T> createQuery(Class<T> type, Specification<Note> spec, Sort sort, SelectionFactory<T> selection) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(type);
+        Root<Note> root = query.from(Note.class);
+        query.select(selection.select(root, criteriaBuilder));
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private <T> Page<T> page(TypedQuery<T> query, Specification<Note> spec, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    private long count(Specification<Note> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Note> root = query.from(Note.class);
+        query.select(criteriaBuilder.count(root));
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Specification<Note> byIdAndUser(Long id, Long userId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.equal(root.get("id"), id),
+                criteriaBuilder.equal(root.get("user").get("id"), userId));
+    }
+
+    @FunctionalInterface
+    private interface SelectionFactory<T> {
+        Selection<? extends T> select(Root<Note> root, CriteriaBuilder criteriaBuilder);
+    }
+}
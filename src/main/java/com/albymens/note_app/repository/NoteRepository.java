@@ -1,13 +1,121 @@
 package com.albymens.note_app.repository;
 
 import com.albymens.note_app.model.Note;
+import com.albymens.note_app.repository.projection.NoteTextProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface NoteRepository extends JpaRepository<Note, Long>, JpaSpecificationExecutor<Note> {
+public interface NoteRepository extends JpaRepository<Note, Long>, JpaSpecificationExecutor<Note>, NoteProjectionRepository {
     List<Note> findByDeletedAtIsNull();
+
+    /**
+     * Query space of the single-note statements below. It matches no mapped table, so running
+     * them leaves the notes cache region alone; callers evict the one note they changed.
+     */
+    String SINGLE_NOTE_SPACE = "single_note";
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    boolean existsByIdAndUserIdAndDeletedAtIsNull(Long id, Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SINGLE_NOTE_SPACE))
+    @Query(value = "UPDATE notes SET title = COALESCE(:title, title), excerpt = COALESCE(:excerpt, excerpt), " +
+            "content_length = COALESCE(:contentLength, content_length), tags = COALESCE(:tags, tags), " +
+            "updated_at = :now, version = version + 1 " +
+            "WHERE id = :id AND user_id = :userId AND deleted_at IS NULL " +
+            "AND (CAST(:expectedVersion AS INTEGER) IS NULL OR version = :expectedVersion)", nativeQuery = true)
+    int updateText(@Param("id") Long id, @Param("userId") Long userId, @Param("title") String title,
+                   @Param("excerpt") String excerpt, @Param("contentLength") Integer contentLength,
+                   @Param("tags") String tags, @Param("now") Instant now,
+                   @Param("expectedVersion") Integer expectedVersion);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SINGLE_NOTE_SPACE))
+    @Query(value = "MERGE INTO note_bodies (note_id, content) KEY (note_id) VALUES (:noteId, :content)", nativeQuery = true)
+    int upsertBody(@Param("noteId") Long noteId, @Param("content") byte[] content);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "note_tags"))
+    @Query(value = "DELETE FROM note_tags WHERE note_id = :noteId", nativeQuery = true)
+    int deleteTagIndex(@Param("noteId") Long noteId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "note_tags"))
+    @Query(value = "INSERT INTO note_tags (note_id, tag) VALUES (:noteId, :tag)", nativeQuery = true)
+    int insertTagIndex(@Param("noteId") Long noteId, @Param("tag") String tag);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SINGLE_NOTE_SPACE))
+    @Query(value = "UPDATE notes SET deleted_at = :now, updated_at = :now, version = version + 1 " +
+            "WHERE id = :id AND user_id = :userId AND deleted_at IS NULL", nativeQuery = true)
+    int softDelete(@Param("id") Long id, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SINGLE_NOTE_SPACE))
+    @Query(value = "UPDATE notes SET deleted_at = NULL, updated_at = :now, version = version + 1 " +
+            "WHERE id = :id AND user_id = :userId AND deleted_at IS NOT NULL", nativeQuery = true)
+    int restore(@Param("id") Long id, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Note n SET n.deletedAt = :now, n.updatedAt = :now, n.version = n.version + 1 " +
+            "WHERE n.user.id = :userId AND n.deletedAt IS NULL " +
+            "AND n.id IN (SELECT t.id FROM Note t JOIN t.tagIndex tag WHERE tag IN :tags)")
+    int softDeleteByTags(@Param("userId") Long userId, @Param("tags") List<String> tags, @Param("now") Instant now);
+
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND n.updatedAt <= :horizon " +
+            "AND (n.updatedAt > :since OR (n.updatedAt = :since AND n.id > :id)) " +
+            "AND (:includeDeleted = true OR n.deletedAt IS NULL) ORDER BY n.updatedAt, n.id")
+    List<Note> findChangesSince(@Param("userId") Long userId, @Param("since") Instant since, @Param("id") Long id,
+                                @Param("horizon") Instant horizon, @Param("includeDeleted") boolean includeDeleted,
+                                Limit limit);
+
+    /**
+     * Selects and locks a batch of notes deleted before the cutoff, so that they cannot be
+     * restored while the transaction archives or purges them.
+     */
+    @Query(value = "SELECT id FROM notes WHERE deleted_at < :cutoff ORDER BY deleted_at, id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockIdsDeletedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "note_tags"))
+    @Query(value = "DELETE FROM note_tags WHERE note_id IN (:ids)", nativeQuery = true)
+    int deleteTagIndexIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "note_bodies"))
+    @Query(value = "DELETE FROM note_bodies WHERE note_id IN (:ids)", nativeQuery = true)
+    int deleteBodiesIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notes"))
+    @Query(value = "DELETE FROM notes WHERE id IN (:ids) AND deleted_at < :cutoff", nativeQuery = true)
+    int deleteNotesIn(@Param("ids") Collection<Long> ids, @Param("cutoff") Instant cutoff);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId AND n.deletedAt IS NULL ORDER BY n.id")
+    Stream<Note> streamActiveByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT n.id AS id, n.title AS title, n.content AS content FROM Note n " +
+            "WHERE n.user.id = :userId AND n.deletedAt IS NULL")
+    List<NoteTextProjection> findActiveTextByUserId(@Param("userId") Long userId);
 }
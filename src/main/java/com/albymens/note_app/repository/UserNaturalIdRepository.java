@@ -0,0 +1,10 @@
+package com.albymens.note_app.repository;
+
+import com.albymens.note_app.model.User;
+
+import java.util.Optional;
+
+public interface UserNaturalIdRepository {
+
+    Optional<User> findByNaturalId(String username);
+}
@@ -0,0 +1,7 @@
+package com.albymens.note_app.repository.projection;
+
+public interface NoteTextProjection {
+    Long getId();
+    String getTitle();
+    String getContent();
+}
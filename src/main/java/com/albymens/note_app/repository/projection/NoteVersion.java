@@ -0,0 +1,6 @@
+package com.albymens.note_app.repository.projection;
+
+import java.time.Instant;
+
+public record NoteVersion(Long id, Integer version, Instant updatedAt) {
+}
@@ -2,11 +2,16 @@ package com.albymens.note_app.repository.specification;
 
 import com.albymens.note_app.model.Note;
 import com.albymens.note_app.model.User;
-import jakarta.persistence.criteria.Expression;
-import jakarta.persistence.criteria.Predicate;
+import com.albymens.note_app.model.converter.TagConverter;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
-import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public class NoteSpecification {
@@ -18,37 +23,58 @@ public class NoteSpecification {
         return (root, query, criteriaBuilder) -> criteriaBuilder.isNull(root.get("deletedAt"));
     }
 
+    public static Specification<Note> hasIdIn(Collection<Long> ids){
+        return (root, query, criteriaBuilder) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Note> seekAfter(String sortBy, Sort.Direction direction, Instant sortKey, Long id){
+        return (root, query, criteriaBuilder) -> {
+            Path<Instant> key = root.get(sortBy);
+            Path<Long> noteId = root.get("id");
+            if (direction.isAscending()){
+                return criteriaBuilder.or(
+                        criteriaBuilder.greaterThan(key, sortKey),
+                        criteriaBuilder.and(criteriaBuilder.equal(key, sortKey), criteriaBuilder.greaterThan(noteId, id))
+                );
+            }
+            return criteriaBuilder.or(
+                    criteriaBuilder.lessThan(key, sortKey),
+                    criteriaBuilder.and(criteriaBuilder.equal(key, sortKey), criteriaBuilder.lessThan(noteId, id))
+            );
+        };
+    }
+
     public static Specification<Note>  containSearchTerm(String searchTerm){
         return (root, query, criteriaBuilder) -> {
             if(searchTerm == null || searchTerm.trim().isEmpty()){
                 return criteriaBuilder.conjunction();
             }
 
+            // Content is stored compressed in note_bodies and cannot be matched in SQL; users'
+            // content is searched through NoteSearchIndex instead.
             String pattern = "%" + searchTerm.toLowerCase() + "%";
-            return criteriaBuilder.or(
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), pattern),
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("content")), pattern)
-            );
+            return criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), pattern);
         };
     }
 
-    public static Specification<Note> hasAnyTags(List<String> tags){
+    public static Specification<Note> hasTags(List<String> tags, TagMatch match){
         return (root, query, criteriaBuilder) -> {
-            if (tags == null || tags.isEmpty()){
+            List<String> normalizedTags = TagConverter.normalizeTags(tags);
+            if (normalizedTags.isEmpty()){
                 return criteriaBuilder.conjunction();
             }
 
-            Expression<String> tagsField = criteriaBuilder.lower(root.get("tags"));
-
-            List<Predicate> predicates = new ArrayList<>();
+            Subquery<Long> taggedNotes = query.subquery(Long.class);
+            Root<Note> taggedNote = taggedNotes.from(Note.class);
+            Join<Note, String> tag = taggedNote.join("tagIndex");
+            taggedNotes.select(taggedNote.get("id")).where(tag.in(normalizedTags));
 
-            for (String tag : tags){
-                String normalizeTag = "%" + tag.toLowerCase() + "%";
-                predicates.add(criteriaBuilder.like(tagsField, normalizeTag));
+            if (match == TagMatch.ALL){
+                taggedNotes.groupBy(taggedNote.get("id"))
+                        .having(criteriaBuilder.equal(criteriaBuilder.count(tag), (long) normalizedTags.size()));
             }
 
-            return criteriaBuilder.or(predicates.toArray(new Predicate[0]));
+            return root.get("id").in(taggedNotes);
         };
-
     }
 }
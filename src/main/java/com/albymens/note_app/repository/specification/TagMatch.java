@@ -0,0 +1,21 @@
+package com.albymens.note_app.repository.specification;
+
+import com.albymens.note_app.exception.IllegalArgumentsException;
+
+public enum TagMatch {
+    ANY,
+    ALL;
+
+    public static TagMatch from(String value) {
+        if (value == null || value.isBlank()) {
+            return ANY;
+        }
+
+        for (TagMatch match : values()) {
+            if (match.name().equalsIgnoreCase(value.trim())) {
+                return match;
+            }
+        }
+        throw new IllegalArgumentsException("Unsupported tag match mode: " + value);
+    }
+}
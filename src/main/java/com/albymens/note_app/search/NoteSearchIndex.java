@@ -0,0 +1,223 @@
+package com.albymens.note_app.search;
+
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.repository.NoteRepository;
+import com.albymens.note_app.repository.projection.NoteTextProjection;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over note titles and contents, partitioned per user.
+ * A user's partition is built from the database on their first search and is then
+ * kept up to date by {@link com.albymens.note_app.service.NoteService} after each commit.
+ * Partitions of the least recently searching users are dropped beyond the configured
+ * number of users or after a period without searches.
+ */
+@Component
+public class NoteSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchIndex.class);
+
+    @Autowired
+    private NoteRepository noteRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notes.search.index.max-users:1000}")
+    private long maxUsers;
+
+    @Value("${notes.search.index.expire-after-access:30m}")
+    private Duration expireAfterAccess;
+
+    private AsyncCache<Long, UserIndex> indexes;
+
+    @PostConstruct
+    public void init() {
+        indexes = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "note-search-index");
+    }
+
+    /**
+     * Returns the ids of the user's notes matching every term of the query, where each
+     * term is treated as a prefix so that partially typed words still match.
+     * A query without any searchable terms matches nothing.
+     */
+    public Set<Long> search(Long userId, String query) {
+        List<String> terms = NoteAnalyzer.tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        return partition(userId).match(terms);
+    }
+
+    /**
+     * Returns whether the user's partition is built, so that {@link #search} answers from
+     * memory without reading the database.
+     */
+    public boolean isLoaded(Long userId) {
+        CompletableFuture<UserIndex> index = indexes.getIfPresent(userId);
+        return index != null && index.isDone() && !index.isCompletedExceptionally();
+    }
+
+    public void index(Note note) {
+        index(note.getUser().getId(), note.getId(), note.getTitle(), note.getContent());
+    }
+
+    public void index(Long userId, Long noteId, String title, String content) {
+        Set<String> terms = NoteAnalyzer.analyze(title, content);
+        afterCommit(() -> whenPresent(userId, index -> index.put(noteId, terms)));
+    }
+
+    public void remove(Long userId, Long noteId) {
+        afterCommit(() -> whenPresent(userId, index -> index.remove(noteId)));
+    }
+
+    public void evict(Long userId) {
+        afterCommit(() -> indexes.synchronous().invalidate(userId));
+    }
+
+    /**
+     * Returns the user's partition, building it on the calling thread. Its future is in the
+     * cache before the database is read, so changes committed in the meantime are applied
+     * once it is built, and the read holds no lock of the cache.
+     */
+    private UserIndex partition(Long userId) {
+        CompletableFuture<UserIndex> created = new CompletableFuture<>();
+        CompletableFuture<UserIndex> existing = indexes.asMap().putIfAbsent(userId, created);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            created.complete(load(userId));
+        } catch (RuntimeException e) {
+            indexes.asMap().remove(userId, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+        return created.join();
+    }
+
+    private void whenPresent(Long userId, Consumer<UserIndex> change) {
+        CompletableFuture<UserIndex> index = indexes.asMap().get(userId);
+        if (index != null) {
+            index.thenAccept(change);
+        }
+    }
+
+    private UserIndex load(Long userId) {
+        UserIndex index = new UserIndex();
+        List<NoteTextProjection> notes = noteRepository.findActiveTextByUserId(userId);
+        for (NoteTextProjection note : notes) {
+            index.put(note.getId(), NoteAnalyzer.analyze(note.getTitle(), note.getContent()));
+        }
+        logger.info("Built search index for user {} with {} notes", userId, notes.size());
+        return index;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class UserIndex {
+        private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+        private final Map<Long, Set<String>> documents = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        void put(Long noteId, Set<String> terms) {
+            lock.writeLock().lock();
+            try {
+                removeDocument(noteId);
+                documents.put(noteId, terms);
+                for (String term : terms) {
+                    postings.computeIfAbsent(term, t -> new HashSet<>()).add(noteId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long noteId) {
+            lock.writeLock().lock();
+            try {
+                removeDocument(noteId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Set<Long> match(List<String> terms) {
+            lock.readLock().lock();
+            try {
+                Set<Long> result = null;
+                for (String term : terms) {
+                    Set<Long> matches = new HashSet<>();
+                    for (Set<Long> ids : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+                        matches.addAll(ids);
+                    }
+                    if (result == null) {
+                        result = matches;
+                    } else {
+                        result.retainAll(matches);
+                    }
+                    if (result.isEmpty()) {
+                        return Collections.emptySet();
+                    }
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void removeDocument(Long noteId) {
+            Set<String> previous = documents.remove(noteId);
+            if (previous == null) {
+                return;
+            }
+            for (String term : previous) {
+                Set<Long> ids = postings.get(term);
+                if (ids != null && ids.remove(noteId) && ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
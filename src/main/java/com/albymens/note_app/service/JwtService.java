@@ -2,12 +2,14 @@ package com.albymens.note_app.service;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -20,6 +22,20 @@ public class JwtService {
     @Value("${security.jwt.token.expire-length}")
     private Long expiration;
 
+    @Value("${security.jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = new VerifiedTokenCache(cacheMaxSize);
+    }
+
     public String generateToken(String username, Long userId){
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
@@ -33,31 +49,43 @@ public class JwtService {
                 .claims(claims)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(Keys.hmacShaKeyFor(secretKey.getBytes()))
+                .signWith(signingKey)
                 .compact();
     }
 
     public Claims extractClaims(String token){
-        return Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(secretKey.getBytes()))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
+    /**
+     * Returns the claims of a valid, unexpired token or {@code null} otherwise. Tokens that
+     * were already verified are served from the cache without parsing the token again.
+     */
+    public Claims verifyToken(String token) {
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
 
-    public String extractUsername(String token){
-        return extractClaims(token).getSubject();
-    }
-
-    public boolean validateToken(String token) {
         try {
             Claims claims = extractClaims(token);
-            Date expiryDate = claims.getExpiration();
-            return expiryDate.after(new Date());
+            if (claims.getExpiration() == null || !claims.getExpiration().after(new Date())) {
+                return null;
+            }
+            verifiedTokens.put(token, claims);
+            return claims;
         } catch (JwtException | IllegalArgumentException e){
-            return false;
+            return null;
         }
     }
 
-}
\ No newline at end of file
+    public String extractUsername(String token){
+        Claims claims = verifyToken(token);
+        return claims != null ? claims.getSubject() : extractClaims(token).getSubject();
+    }
+
+    public boolean validateToken(String token) {
+        return verifyToken(token) != null;
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.albymens.note_app.service;
+
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.model.Note;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads and writes notes as Markdown documents. A document may start with a front matter
+ * block delimited by {@code ---} lines holding a {@code title} and {@code tags}, given either
+ * inline as {@code [a, b]} or as a {@code - item} list. Without a title the first
+ * {@code # heading} is used, and failing that the file name. Exported documents also carry
+ * the note id and timestamps, which are ignored on import.
+ */
+public final class MarkdownNotes {
+
+    private static final String FRONT_MATTER_DELIMITER = "---";
+    private static final int MAX_TITLE_LENGTH = 50;
+    private static final int MAX_SLUG_LENGTH = 40;
+
+    private MarkdownNotes() {
+    }
+
+    public static boolean isMarkdown(String path) {
+        String name = fileName(path);
+        String lower = name.toLowerCase();
+        return !name.startsWith(".") && !path.startsWith("__MACOSX/")
+                && (lower.endsWith(".md") || lower.endsWith(".markdown"));
+    }
+
+    public static Note parse(String path, String text) {
+        List<String> lines = new ArrayList<>(text.replace("\r\n", "\n").replace("\r", "\n").lines().toList());
+        if (!lines.isEmpty() && lines.get(0).startsWith("\uFEFF")) {
+            lines.set(0, lines.get(0).substring(1));
+        }
+
+        String title = null;
+        List<String> tags = null;
+        int bodyStart = 0;
+
+        if (!lines.isEmpty() && lines.get(0).strip().equals(FRONT_MATTER_DELIMITER)) {
+            int end = indexOfDelimiter(lines);
+            if (end > 0) {
+                String listKey = null;
+                for (String line : lines.subList(1, end)) {
+                    String trimmed = line.strip();
+                    if (trimmed.startsWith("- ") && "tags".equals(listKey)) {
+                        tags.add(unquote(trimmed.substring(2)));
+                        continue;
+                    }
+                    int colon = trimmed.indexOf(':');
+                    if (colon <= 0) {
+                        continue;
+                    }
+                    String key = trimmed.substring(0, colon).strip().toLowerCase();
+                    String value = trimmed.substring(colon + 1).strip();
+                    listKey = key;
+                    if (key.equals("title")) {
+                        title = unquote(value);
+                    } else if (key.equals("tags")) {
+                        tags = parseInlineList(value);
+                    }
+                }
+                bodyStart = end + 1;
+            }
+        }
+
+        while (bodyStart < lines.size() && lines.get(bodyStart).isBlank()) {
+            bodyStart++;
+        }
+        if (!hasText(title) && bodyStart < lines.size() && lines.get(bodyStart).startsWith("# ")) {
+            title = truncate(lines.get(bodyStart).substring(2).strip());
+            bodyStart++;
+        }
+        if (!hasText(title)) {
+            title = truncate(baseName(path));
+        }
+
+        String content = String.join("\n", lines.subList(Math.min(bodyStart, lines.size()), lines.size())).strip();
+
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent(content.isEmpty() ? null : content);
+        note.setTags(tags);
+        return note;
+    }
+
+    public static String write(NoteDto note) {
+        StringBuilder markdown = new StringBuilder(64 + (note.getContent() == null ? 0 : note.getContent().length()));
+        markdown.append(FRONT_MATTER_DELIMITER).append('\n')
+                .append("id: ").append(note.getId()).append('\n')
+                .append("title: ").append(quote(note.getTitle())).append('\n')
+                .append("tags: [");
+        List<String> tags = note.getTags() == null ? List.of() : note.getTags();
+        for (int i = 0; i < tags.size(); i++) {
+            markdown.append(i == 0 ? "" : ", ").append(quote(tags.get(i)));
+        }
+        markdown.append("]\n")
+                .append("created: ").append(note.getCreatedAt()).append('\n')
+                .append("updated: ").append(note.getUpdatedAt()).append('\n')
+                .append(FRONT_MATTER_DELIMITER).append("\n\n");
+        if (note.getContent() != null) {
+            markdown.append(note.getContent()).append('\n');
+        }
+        return markdown.toString();
+    }
+
+    /**
+     * Returns a file name for the note that is unique within one user's export.
+     */
+    public static String entryName(NoteDto note) {
+        String slug = note.getTitle() == null ? "" : note.getTitle().toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("^-|-$", "");
+        if (slug.length() > MAX_SLUG_LENGTH) {
+            slug = slug.substring(0, MAX_SLUG_LENGTH);
+        }
+        return slug.isEmpty() ? note.getId() + ".md" : note.getId() + "-" + slug + ".md";
+    }
+
+    private static int indexOfDelimiter(List<String> lines) {
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).strip().equals(FRONT_MATTER_DELIMITER)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<String> parseInlineList(String value) {
+        List<String> items = new ArrayList<>();
+        if (value.startsWith("[") && value.endsWith("]")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        StringBuilder item = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '\\' && quoted && i + 1 < value.length()) {
+                item.append(c).append(value.charAt(++i));
+                continue;
+            } else if (c == ',' && !quoted) {
+                addItem(items, item);
+                continue;
+            }
+            item.append(c);
+        }
+        addItem(items, item);
+        return items;
+    }
+
+    private static void addItem(List<String> items, StringBuilder item) {
+        String unquoted = unquote(item.toString().strip());
+        if (!unquoted.isEmpty()) {
+            items.add(unquoted);
+        }
+        item.setLength(0);
+    }
+
+    private static String quote(String value) {
+        return value == null ? "\"\"" : "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            StringBuilder unescaped = new StringBuilder(value.length());
+            for (int i = 1; i < value.length() - 1; i++) {
+                char c = value.charAt(i);
+                unescaped.append(c == '\\' && i + 1 < value.length() - 1 ? value.charAt(++i) : c);
+            }
+            return unescaped.toString();
+        }
+        if (value.length() >= 2 && value.startsWith("'") && value.endsWith("'")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static String fileName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static String baseName(String path) {
+        String name = fileName(path);
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static String truncate(String title) {
+        return title.length() > MAX_TITLE_LENGTH ? title.substring(0, MAX_TITLE_LENGTH).strip() : title;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
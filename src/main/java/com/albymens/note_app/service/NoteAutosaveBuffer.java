@@ -0,0 +1,319 @@
+package com.albymens.note_app.service;
+
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.events.NoteEvent;
+import com.albymens.note_app.events.NoteEventBus;
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.repository.NoteRepository;
+import com.albymens.note_app.search.NoteSearchIndex;
+import com.albymens.note_app.sharding.ShardContext;
+import com.albymens.note_app.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds autosave edits in memory, collapsing consecutive edits to the same note into one
+ * pending change, and writes them to the database in batched transactions every flush
+ * interval or as soon as the number of pending notes reaches the flush threshold.
+ * Pending edits are flushed before the application shuts down.
+ */
+@Component
+public class NoteAutosaveBuffer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteAutosaveBuffer.class);
+
+    private final Map<Long, PendingEdit> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final NoteRepository noteRepository;
+    private final NoteSearchIndex noteSearchIndex;
+    private final NoteEventBus noteEventBus;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService scheduler;
+    private final int flushThreshold;
+    private final int batchSize;
+    private final Counter flushed;
+    private final Counter coalesced;
+    private final Counter dropped;
+
+    public NoteAutosaveBuffer(NoteRepository noteRepository, NoteSearchIndex noteSearchIndex, NoteEventBus noteEventBus,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${notes.autosave.flush-interval:2s}") Duration flushInterval,
+                              @Value("${notes.autosave.flush-threshold:200}") int flushThreshold,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.noteRepository = noteRepository;
+        this.noteSearchIndex = noteSearchIndex;
+        this.noteEventBus = noteEventBus;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushThreshold = flushThreshold;
+        this.batchSize = batchSize;
+        this.flushed = Counter.builder("notes.autosave.flushed").register(meterRegistry);
+        this.coalesced = Counter.builder("notes.autosave.coalesced").register(meterRegistry);
+        this.dropped = Counter.builder("notes.autosave.dropped").register(meterRegistry);
+        Gauge.builder("notes.autosave.pending", pending, Map::size).register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("note-autosave-"));
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers an edit for a note the caller has already checked the user owns. Null fields
+     * leave the corresponding value of any earlier pending edit, or of the stored note, as is.
+     */
+    public void accept(Long noteId, Long userId, String title, String content, List<String> tags) {
+        PendingEdit edit = new PendingEdit(userId, title, content, tags);
+        PendingEdit previous = pending.get(noteId);
+        pending.merge(noteId, edit, PendingEdit::merge);
+        if (previous != null) {
+            coalesced.increment();
+        }
+
+        if (pending.size() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    public boolean isPendingFor(Long noteId, Long userId) {
+        return pendingFor(noteId, userId) != null;
+    }
+
+    /**
+     * Returns the pending edit of a note if it was buffered by the given user, or null.
+     */
+    public PendingEdit pendingFor(Long noteId, Long userId) {
+        PendingEdit edit = pending.get(noteId);
+        return edit != null && edit.userId().equals(userId) ? edit : null;
+    }
+
+    /**
+     * Drops the pending edit of a note that has been deleted directly, so that a later flush
+     * cannot bring back its content.
+     */
+    public void discard(Long noteId) {
+        pending.remove(noteId);
+    }
+
+    /**
+     * Drops a pending edit that the current transaction has written into the note, unless a
+     * newer edit has replaced it. The edit is buffered again if the transaction rolls back.
+     * A flush that read the note before this transaction fails its version check, and one
+     * that reads it afterwards no longer finds the edit pending.
+     */
+    public void discard(Long noteId, PendingEdit edit) {
+        if (edit == null || !pending.remove(noteId, edit)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        pending.merge(noteId, edit, (newer, restored) -> restored.merge(newer));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies the user's pending edit to a note read from the database so that they see their
+     * own autosaved changes before they are flushed. Edits of other users are never applied.
+     */
+    public NoteDto overlay(NoteDto note, Long userId) {
+        if (note == null || pending.isEmpty()) {
+            return note;
+        }
+
+        PendingEdit edit = pendingFor(note.getId(), userId);
+        if (edit != null) {
+            if (edit.title() != null) {
+                note.setTitle(edit.title());
+            }
+            if (edit.content() != null) {
+                note.setContent(edit.content());
+            }
+            if (edit.tags() != null) {
+                note.setTags(edit.tags());
+            }
+        }
+        return note;
+    }
+
+    public NoteSummary overlay(NoteSummary note, Long userId) {
+        if (note == null || pending.isEmpty()) {
+            return note;
+        }
+
+        PendingEdit edit = pendingFor(note.getId(), userId);
+        if (edit != null) {
+            if (edit.title() != null) {
+                note.setTitle(edit.title());
+            }
+            if (edit.content() != null) {
+                note.setExcerpt(Note.excerptOf(edit.content()));
+                note.setContentLength(edit.content().length());
+            }
+            if (edit.tags() != null) {
+                note.setTags(edit.tags());
+            }
+        }
+        return note;
+    }
+
+    public void flush() {
+        // Flushes hold the lock across JDBC writes, so it must not be a monitor that pins virtual threads.
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            Map<Integer, Map<Long, PendingEdit>> byShard = new TreeMap<>();
+            for (Map.Entry<Long, PendingEdit> entry : pending.entrySet()) {
+                byShard.computeIfAbsent(shardRouter.shardOf(entry.getValue().userId()), shard -> new LinkedHashMap<>())
+                        .put(entry.getKey(), entry.getValue());
+            }
+            byShard.forEach((shard, edits) -> ShardContext.run(shard, () -> flushShard(edits)));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushShard(Map<Long, PendingEdit> edits) {
+        Map<Long, PendingEdit> batch = new LinkedHashMap<>();
+        for (Map.Entry<Long, PendingEdit> entry : edits.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() == batchSize) {
+                flushBatch(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushBatch(batch);
+        }
+    }
+
+    private void flushBatch(Map<Long, PendingEdit> batch) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            logger.warn("Autosave batch of {} notes failed, retrying notes individually", batch.size(), e);
+            batch.forEach((noteId, edit) -> flushSingle(noteId, edit));
+        }
+    }
+
+    private void flushSingle(Long noteId, PendingEdit edit) {
+        try {
+            write(Map.of(noteId, edit));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Autosave for note {} lost to a concurrent update and was dropped", noteId);
+            dropped.increment();
+            pending.remove(noteId, edit);
+        } catch (RuntimeException e) {
+            logger.error("Autosave for note {} failed, keeping it for the next flush", noteId, e);
+        }
+    }
+
+    private void write(Map<Long, PendingEdit> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, List<Note>> written = new LinkedHashMap<>();
+            for (Note note : noteRepository.findAllById(batch.keySet())) {
+                PendingEdit edit = batch.get(note.getId());
+                // An update may have written the edit and discarded it since the snapshot was taken.
+                if (!edit.equals(pending.get(note.getId()))) {
+                    continue;
+                }
+                if (note.getDeletedAt() != null || !edit.userId().equals(note.getUser().getId())) {
+                    continue;
+                }
+                edit.applyTo(note);
+                noteSearchIndex.index(edit.userId(), note.getId(), note.getTitle(), note.getContent());
+                written.computeIfAbsent(edit.userId(), userId -> new ArrayList<>()).add(note);
+            }
+            written.forEach((userId, notes) -> noteEventBus.publish(userId, () -> notes.stream()
+                    .map(note -> NoteEvent.of(NoteEvent.Type.UPDATED, note))
+                    .toList()));
+            logger.debug("Flushing {} autosaved notes", written.values().stream().mapToInt(List::size).sum());
+        });
+
+        batch.forEach((noteId, edit) -> {
+            if (pending.remove(noteId, edit)) {
+                flushed.increment();
+            }
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Autosave flush failed", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        if (!pending.isEmpty()) {
+            logger.error("{} autosaved notes could not be flushed before shutdown", pending.size());
+        }
+    }
+
+    /**
+     * Changes to a note where null fields are left as they are.
+     */
+    public record PendingEdit(Long userId, String title, String content, List<String> tags) {
+
+        public PendingEdit merge(PendingEdit newer) {
+            return new PendingEdit(userId,
+                    newer.title() != null ? newer.title() : title,
+                    newer.content() != null ? newer.content() : content,
+                    newer.tags() != null ? newer.tags() : tags);
+        }
+
+        public void applyTo(Note note) {
+            if (title != null) {
+                note.setTitle(title);
+            }
+            if (content != null) {
+                note.setContent(content);
+            }
+            if (tags != null) {
+                note.setTags(tags);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.albymens.note_app.service;
+
+import com.albymens.note_app.config.ThreadFactories;
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.exception.IllegalArgumentsException;
+import com.albymens.note_app.exception.ServerBusyException;
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.UserRepository;
+import com.albymens.note_app.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class NoteExportService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteExportService.class);
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+
+    private static final int USER_PAGE_SIZE = 100;
+
+    private final NoteService noteService;
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService adminExecutor;
+    private final Semaphore adminExports;
+    private final int adminWorkers;
+    private final int adminQueueCapacity;
+
+    public NoteExportService(NoteService noteService, UserRepository userRepository, ShardRouter shardRouter,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry, ThreadFactories threadFactories,
+                             @Value("${notes.export.admin.workers:4}") int adminWorkers,
+                             @Value("${notes.export.admin.queue-capacity:64}") int adminQueueCapacity,
+                             @Value("${notes.export.admin.max-concurrent:1}") int maxConcurrentAdminExports) {
+        this.noteService = noteService;
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.adminWorkers = adminWorkers;
+        this.adminQueueCapacity = adminQueueCapacity;
+        this.adminExports = new Semaphore(maxConcurrentAdminExports);
+        this.adminExecutor = Executors.newFixedThreadPool(adminWorkers * maxConcurrentAdminExports,
+                threadFactories.blocking("note-export-"));
+        Gauge.builder("notes.export.admin.active", adminExports,
+                s -> maxConcurrentAdminExports - s.availablePermits()).register(meterRegistry);
+    }
+
+    public enum Format {
+        NDJSON, JSON, MARKDOWN;
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentsException("Unsupported export format: " + value);
+        }
+    }
+
+    public void writeActiveNotes(User user, Format format, OutputStream outputStream) throws IOException {
+        if (format == Format.MARKDOWN) {
+            writeMarkdownZip(user, outputStream);
+            return;
+        }
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            if (format == Format.JSON) {
+                generator.writeStartArray();
+            } else {
+                generator.setRootValueSeparator(null);
+            }
+
+            noteService.exportActiveNotes(user, note -> write(generator, note, format));
+
+            if (format == Format.JSON) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private void writeMarkdownZip(User user, OutputStream outputStream) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8)) {
+            noteService.exportActiveNotes(user, note -> {
+                try {
+                    writeEntry(zip, MarkdownNotes.entryName(note), MarkdownNotes.write(note).getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reserves a slot for an export of every user's notes, failing fast with
+     * {@link ServerBusyException} when the configured number of exports is already running.
+     * The slot is released once {@link AllNotesExport#writeTo} returns.
+     */
+    public AllNotesExport startAllNotesExport() {
+        if (!adminExports.tryAcquire()) {
+            throw new ServerBusyException("An export of all notes is already running, please retry later");
+        }
+        return new AllNotesExport();
+    }
+
+    private void write(JsonGenerator generator, NoteDto note, Format format) {
+        try {
+            objectMapper.writeValue(generator, note);
+            if (format == Format.NDJSON) {
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(bytes);
+        zip.closeEntry();
+    }
+
+    @Override
+    public void destroy() {
+        adminExecutor.shutdownNow();
+    }
+
+    /**
+     * Zip export of the notes of every user, one folder per user. Users are handed out to a
+     * fixed number of workers that each stream one user's notes from that user's shard and
+     * render them to Markdown; the rendered entries pass through a bounded queue to the
+     * single thread writing the zip, so memory stays bounded by the queue capacity and a
+     * slow client slows the workers down instead of piling up entries.
+     */
+    public final class AllNotesExport {
+
+        private static final Entry END = new Entry(null, null);
+
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final BlockingQueue<Entry> entries = new ArrayBlockingQueue<>(adminQueueCapacity);
+        private final Deque<User> users = new ArrayDeque<>();
+        private final ReentrantLock usersLock = new ReentrantLock();
+        private long lastUserId;
+        private boolean exhausted;
+
+        private AllNotesExport() {
+        }
+
+        public void writeTo(OutputStream outputStream) throws IOException {
+            List<Future<?>> workers = new ArrayList<>(adminWorkers);
+            try (ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < adminWorkers; i++) {
+                    workers.add(adminExecutor.submit(this::work));
+                }
+
+                int finished = 0;
+                while (finished < workers.size()) {
+                    Entry entry = entries.take();
+                    if (entry == END) {
+                        finished++;
+                    } else {
+                        writeEntry(zip, entry.name(), entry.bytes());
+                    }
+                }
+
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while exporting notes", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Export of all notes failed", e.getCause());
+            } finally {
+                cancelled.set(true);
+                workers.forEach(worker -> worker.cancel(true));
+                adminExports.release();
+            }
+        }
+
+        private void work() {
+            try {
+                User next;
+                while (!cancelled.get() && (next = nextUser()) != null) {
+                    User user = next;
+                    String folder = user.getUsername() + "/";
+                    shardRouter.runAs(user.getId(), () -> noteService.exportActiveNotes(user, note ->
+                            offer(new Entry(folder + MarkdownNotes.entryName(note),
+                                    MarkdownNotes.write(note).getBytes(StandardCharsets.UTF_8)))));
+                }
+            } catch (RuntimeException e) {
+                if (!cancelled.get()) {
+                    logger.error("Export worker failed", e);
+                    throw e;
+                }
+            } finally {
+                offerEnd();
+            }
+        }
+
+        private User nextUser() {
+            usersLock.lock();
+            try {
+                if (users.isEmpty() && !exhausted) {
+                    List<User> page = userRepository.findByIdGreaterThanOrderByIdAsc(lastUserId, Limit.of(USER_PAGE_SIZE));
+                    users.addAll(page);
+                    exhausted = page.size() < USER_PAGE_SIZE;
+                    if (!page.isEmpty()) {
+                        lastUserId = page.get(page.size() - 1).getId();
+                    }
+                }
+                return users.poll();
+            } finally {
+                usersLock.unlock();
+            }
+        }
+
+        private void offer(Entry entry) {
+            try {
+                while (!entries.offer(entry, 1, TimeUnit.SECONDS)) {
+                    if (cancelled.get()) {
+                        throw new IllegalStateException("Export cancelled");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Export cancelled", e);
+            }
+        }
+
+        private void offerEnd() {
+            try {
+                while (!cancelled.get() && !entries.offer(END, 1, TimeUnit.SECONDS)) {
+                    // the writer is still draining the queue
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record Entry(String name, byte[] bytes) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.albymens.note_app.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one bulk import. Counters are updated by the import worker after every batch
+ * and may be read concurrently by status requests.
+ */
+public class NoteImportJob {
+
+    public static final int MAX_ERRORS = 100;
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final String username;
+    private final NoteImportService.Format format;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+    private volatile State state = State.QUEUED;
+    private volatile String message;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public NoteImportJob(String id, String username, NoteImportService.Format format) {
+        this.id = id;
+        this.username = username;
+        this.format = format;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void complete() {
+        finish(State.COMPLETED, null);
+    }
+
+    void fail(String message) {
+        finish(State.FAILED, message);
+    }
+
+    void recordImported(long count) {
+        processed.addAndGet(count);
+        imported.addAndGet(count);
+    }
+
+    void recordFailure(String item, String reason) {
+        processed.incrementAndGet();
+        failed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(item + ": " + reason);
+            }
+        }
+    }
+
+    private void finish(State state, String message) {
+        this.message = message;
+        this.finishedAt = Instant.now();
+        this.state = state;
+    }
+
+    public String getId() { return id; }
+
+    @JsonIgnore
+    public String getUsername() { return username; }
+
+    public NoteImportService.Format getFormat() { return format; }
+
+    public State getState() { return state; }
+
+    public String getMessage() { return message; }
+
+    public long getProcessed() { return processed.get(); }
+
+    public long getImported() { return imported.get(); }
+
+    public long getFailed() { return failed.get(); }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+}
@@ -0,0 +1,312 @@
+package com.albymens.note_app.service;
+
+import com.albymens.note_app.dto.BatchItemResult;
+import com.albymens.note_app.config.ThreadFactories;
+import com.albymens.note_app.exception.IllegalArgumentsException;
+import com.albymens.note_app.exception.ResourceNotFoundException;
+import com.albymens.note_app.exception.ServerBusyException;
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports notes from an uploaded zip of Markdown files or a JSON array of notes. The upload
+ * is spooled to a temporary file and parsed as a stream on a bounded worker pool, so only
+ * one batch of notes is held in memory at a time; each batch is inserted in its own
+ * transaction through {@link NoteService#createNotes}. Progress is tracked in a
+ * {@link NoteImportJob} that callers poll until it finishes.
+ */
+@Service
+public class NoteImportService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteImportService.class);
+    private static final Duration MOVE_RETRY_PAUSE = Duration.ofMillis(100);
+    private static final Duration MOVE_WAIT_LIMIT = Duration.ofMinutes(1);
+
+    public enum Format {
+        MARKDOWN, JSON;
+
+        public static Format from(String value, String filename) {
+            if (value != null && !value.isBlank()) {
+                for (Format format : values()) {
+                    if (format.name().equalsIgnoreCase(value)) {
+                        return format;
+                    }
+                }
+                throw new IllegalArgumentsException("Unsupported import format: " + value);
+            }
+
+            String name = filename == null ? "" : filename.toLowerCase();
+            if (name.endsWith(".zip")) {
+                return MARKDOWN;
+            }
+            if (name.endsWith(".json")) {
+                return JSON;
+            }
+            throw new IllegalArgumentsException("Cannot tell the import format from the file name, pass format=markdown or format=json");
+        }
+    }
+
+    private final NoteService noteService;
+    private final UserService userService;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, NoteImportJob> jobs;
+    private final int batchSize;
+    private final int maxEntrySize;
+    private final Counter imported;
+    private final Counter rejected;
+
+    public NoteImportService(NoteService noteService, UserService userService, ShardRouter shardRouter,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry, ThreadFactories threadFactories,
+                             @Value("${notes.import.workers:2}") int workers,
+                             @Value("${notes.import.queue-capacity:10}") int queueCapacity,
+                             @Value("${notes.import.batch-size:200}") int batchSize,
+                             @Value("${notes.import.max-entry-size:1048576}") int maxEntrySize,
+                             @Value("${notes.import.job-retention:1h}") Duration jobRetention) {
+        this.noteService = noteService;
+        this.userService = userService;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxEntrySize = maxEntrySize;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactories.blocking("note-import-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Jobs never expire while they run; finished jobs are kept for jobRetention after they complete.
+        this.jobs = Caffeine.newBuilder()
+                .expireAfter(Expiry.<String, NoteImportJob>writing((id, job) ->
+                        job.isFinished() ? jobRetention : Duration.ofNanos(Long.MAX_VALUE)))
+                .build();
+        this.imported = Counter.builder("notes.import.imported").register(meterRegistry);
+        this.rejected = Counter.builder("notes.import.rejected").register(meterRegistry);
+        Gauge.builder("notes.import.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("notes.import.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    public NoteImportJob startImport(MultipartFile file, String format, String username) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentsException("Import file is empty");
+        }
+        Format importFormat = Format.from(format, file.getOriginalFilename());
+        User user = userService.findByUsernameOrEmail(username);
+
+        Path upload;
+        try {
+            upload = Files.createTempFile("note-import-", importFormat == Format.JSON ? ".json" : ".zip");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store uploaded import file", e);
+        }
+
+        NoteImportJob job = new NoteImportJob(UUID.randomUUID().toString(), user.getUsername(), importFormat);
+        boolean queued = false;
+        try {
+            file.transferTo(upload);
+            jobs.put(job.getId(), job);
+            executor.execute(() -> run(job, upload, user));
+            queued = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store uploaded import file", e);
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.getId());
+            rejected.increment();
+            throw new ServerBusyException("Too many imports running, please retry shortly");
+        } finally {
+            // Once queued, the job deletes the file when it finishes.
+            if (!queued) {
+                deleteQuietly(upload);
+            }
+        }
+        logger.info("Queued {} import {} for user {}", importFormat, job.getId(), user.getUsername());
+        return job;
+    }
+
+    public NoteImportJob getJob(String jobId, String username) {
+        NoteImportJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.getUsername().equals(userService.findByUsernameOrEmail(username).getUsername())) {
+            throw new ResourceNotFoundException("Import job not found");
+        }
+        return job;
+    }
+
+    private void run(NoteImportJob job, Path upload, User user) {
+        job.start();
+        try (InputStream in = Files.newInputStream(upload)) {
+            Batch batch = new Batch(job, user.getId());
+            if (job.getFormat() == Format.JSON) {
+                readJson(in, batch);
+            } else {
+                readMarkdownZip(in, batch, job);
+            }
+            batch.flush();
+            job.complete();
+            logger.info("Import {} for user {} finished: {} imported, {} failed",
+                    job.getId(), user.getUsername(), job.getImported(), job.getFailed());
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof UncheckedIOException unchecked ? unchecked.getCause() : e;
+            logger.warn("Import {} for user {} failed after {} notes", job.getId(), user.getUsername(), job.getProcessed(), e);
+            job.fail("Import stopped: " + cause.getMessage());
+        } finally {
+            jobs.put(job.getId(), job);
+            deleteQuietly(upload);
+        }
+    }
+
+    private void readJson(InputStream in, Batch batch) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentsException("Expected a JSON array of notes");
+            }
+            int index = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add("#" + index++, objectMapper.readValue(parser, Note.class));
+            }
+        }
+    }
+
+    private void readMarkdownZip(InputStream in, Batch batch, NoteImportJob job) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(in, StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory() || !MarkdownNotes.isMarkdown(entry.getName())) {
+                    continue;
+                }
+                byte[] bytes = readEntry(zip);
+                if (bytes == null) {
+                    job.recordFailure(entry.getName(), "larger than " + maxEntrySize + " bytes");
+                    continue;
+                }
+                batch.add(entry.getName(), MarkdownNotes.parse(entry.getName(), new String(bytes, StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    private byte[] readEntry(ZipInputStream zip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = zip.read(buffer)) != -1) {
+            if (out.size() + read > maxEntrySize) {
+                return null;
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete import file {}", path, e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private final class Batch {
+        private final NoteImportJob job;
+        private final Long userId;
+        private final List<Note> notes = new ArrayList<>(batchSize);
+        private final List<String> labels = new ArrayList<>(batchSize);
+
+        Batch(NoteImportJob job, Long userId) {
+            this.job = job;
+            this.userId = userId;
+        }
+
+        void add(String label, Note note) {
+            notes.add(note);
+            labels.add(label);
+            if (notes.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (notes.isEmpty()) {
+                return;
+            }
+            try {
+                long succeeded = 0;
+                for (BatchItemResult result : createNotes()) {
+                    if (result.isSuccess()) {
+                        succeeded++;
+                    } else {
+                        job.recordFailure(labels.get(result.getIndex()), result.getMessage());
+                    }
+                }
+                job.recordImported(succeeded);
+                imported.increment(succeeded);
+            } catch (RuntimeException e) {
+                logger.warn("Import {} batch of {} notes failed", job.getId(), notes.size(), e);
+                labels.forEach(label -> job.recordFailure(label, e.getMessage()));
+            }
+            notes.clear();
+            labels.clear();
+        }
+
+        /**
+         * Creates the notes on the user's shard, holding it for this batch only so that a
+         * rebalance can move the user between batches. While a move runs, the batch waits.
+         */
+        private List<BatchItemResult> createNotes() {
+            long deadline = System.nanoTime() + MOVE_WAIT_LIMIT.toNanos();
+            while (true) {
+                try {
+                    return shardRouter.callAs(userId, () -> noteService.createNotes(notes, job.getUsername()));
+                } catch (ServerBusyException e) {
+                    if (System.nanoTime() > deadline) {
+                        throw e;
+                    }
+                    try {
+                        Thread.sleep(MOVE_RETRY_PAUSE.toMillis());
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.albymens.note_app.service;
+
+import com.albymens.note_app.repository.ArchivedNoteRepository;
+import com.albymens.note_app.repository.NoteRepository;
+import com.albymens.note_app.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Moves notes that have been soft-deleted for longer than the retention period out of the
+ * notes table, either into {@code notes_archive} or by deleting them outright. Work is done
+ * in small batches, each in its own transaction with a pause in between, so a run never
+ * holds locks on many rows or for long.
+ */
+@Component
+public class NoteRetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteRetentionJob.class);
+
+    public enum Mode { ARCHIVE, PURGE }
+
+    private final NoteRepository noteRepository;
+    private final ArchivedNoteRepository archivedNoteRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Mode mode;
+    private final Duration deletedAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration pause;
+    private final Counter rows;
+    private final DistributionSummary rowsPerRun;
+    private final Timer runTimer;
+
+    public NoteRetentionJob(NoteRepository noteRepository, ArchivedNoteRepository archivedNoteRepository,
+                            ShardRouter shardRouter, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            @Value("${notes.retention.enabled:true}") boolean enabled,
+                            @Value("${notes.retention.mode:archive}") Mode mode,
+                            @Value("${notes.retention.deleted-after:30d}") Duration deletedAfter,
+                            @Value("${notes.retention.batch-size:200}") int batchSize,
+                            @Value("${notes.retention.max-batches-per-run:50}") int maxBatchesPerRun,
+                            @Value("${notes.retention.pause:200ms}") Duration pause) {
+        this.noteRepository = noteRepository;
+        this.archivedNoteRepository = archivedNoteRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.mode = mode;
+        this.deletedAfter = deletedAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pause = pause;
+        String action = mode == Mode.ARCHIVE ? "archived" : "purged";
+        this.rows = Counter.builder("notes.retention.rows").tag("action", action).register(meterRegistry);
+        this.rowsPerRun = DistributionSummary.builder("notes.retention.run.rows").tag("action", action)
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("notes.retention.run.duration").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.retention.interval:1h}",
+            initialDelayString = "${notes.retention.initial-delay:10m}")
+    public void run() {
+        if (enabled) {
+            Instant cutoff = Instant.now().minus(deletedAfter);
+            shardRouter.forEachShard(shard -> moveDeletedBefore(cutoff));
+        }
+    }
+
+    /**
+     * Archives or purges, depending on the configured mode, notes on the current shard deleted
+     * before the cutoff and returns the number of notes moved. Stops after the configured number
+     * of batches; anything left is picked up by the next run.
+     */
+    public int moveDeletedBefore(Instant cutoff) {
+        long started = System.nanoTime();
+        int total = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer moved = transactionTemplate.execute(status -> moveBatch(cutoff));
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+            if (!sleep()) {
+                break;
+            }
+        }
+
+        rowsPerRun.record(total);
+        runTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        if (total > 0) {
+            logger.info("Retention run {} {} notes deleted before {}", mode == Mode.ARCHIVE ? "archived" : "purged",
+                    total, cutoff);
+        }
+        return total;
+    }
+
+    private int moveBatch(Instant cutoff) {
+        List<Long> ids = noteRepository.lockIdsDeletedBefore(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        if (mode == Mode.ARCHIVE) {
+            archivedNoteRepository.archive(ids, cutoff, Instant.now());
+        }
+        noteRepository.deleteTagIndexIn(ids);
+        noteRepository.deleteBodiesIn(ids);
+        int deleted = noteRepository.deleteNotesIn(ids, cutoff);
+        rows.increment(deleted);
+        return deleted;
+    }
+
+    private boolean sleep() {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,36 +1,104 @@
 package com.albymens.note_app.service;
 
+import com.albymens.note_app.dto.BatchItemResult;
+import com.albymens.note_app.dto.ChangeFeedResponse;
+import com.albymens.note_app.dto.CursorPageResponse;
+import com.albymens.note_app.dto.NoteChange;
+import com.albymens.note_app.dto.NoteCursor;
 import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.dto.SyncToken;
 import com.albymens.note_app.exception.DuplicateResourceException;
+import com.albymens.note_app.exception.IllegalArgumentsException;
+import com.albymens.note_app.exception.PreconditionFailedException;
 import com.albymens.note_app.exception.ResourceNotFoundException;
+import com.albymens.note_app.exception.SyncTokenExpiredException;
+import com.albymens.note_app.events.NoteEvent;
+import com.albymens.note_app.events.NoteEventBus;
+import com.albymens.note_app.model.ArchivedNote;
 import com.albymens.note_app.model.Note;
 import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.ArchivedNoteRepository;
 import com.albymens.note_app.repository.NoteRepository;
+import com.albymens.note_app.repository.projection.NoteVersion;
+import com.albymens.note_app.model.converter.CompressedTextConverter;
 import com.albymens.note_app.model.converter.TagConverter;
 import com.albymens.note_app.repository.specification.NoteSpecification;
-import jakarta.transaction.Transactional;
+import com.albymens.note_app.repository.specification.TagMatch;
+import com.albymens.note_app.search.NoteSearchIndex;
+import com.albymens.note_app.sharding.ShardRouter;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class NoteService {
 
     private static final Logger logger = LoggerFactory.getLogger(NoteService.class);
+    private static final CompressedTextConverter contentConverter = new CompressedTextConverter();
+    private static final TagConverter tagConverter = new TagConverter();
 
     @Autowired
     private NoteRepository noteRepository;
     @Autowired
+    private ArchivedNoteRepository archivedNoteRepository;
+    @Autowired
     UserService userService;
+    @Autowired
+    NoteSearchIndex noteSearchIndex;
+    @Autowired
+    NoteAutosaveBuffer noteAutosaveBuffer;
+    @Autowired
+    NoteEventBus noteEventBus;
+    @Autowired
+    ShardRouter shardRouter;
+    @PersistenceContext
+    EntityManager entityManager;
+    @Autowired
+    Validator validator;
+
+    @Value("${notes.batch.max-size:500}")
+    private int maxBatchSize;
+    @Value("${notes.changes.settle-window:2s}")
+    private Duration changeSettleWindow;
+    @Value("${notes.retention.enabled:true}")
+    private boolean retentionEnabled;
+    @Value("${notes.retention.deleted-after:30d}")
+    private Duration retentionDeletedAfter;
 
 public NoteDto createNote(Note request, String username){
 
@@ -51,28 +119,104 @@ public NoteDto createNote(Note request, String username){
        note.setTitle(request.getTitle());
 
        Note savedNote = noteRepository.save(note);
+       noteSearchIndex.index(savedNote);
+       noteEventBus.publish(user.getId(), () -> List.of(NoteEvent.of(NoteEvent.Type.CREATED, savedNote)));
        logger.info("New note {} created at {}", savedNote.getId(), savedNote.getCreatedAt());
 
        return toDto(savedNote);
     }
 
-    public NoteDto getNoteById(Long noteId){
-        Note note = noteRepository.findById(noteId).orElseThrow(
+    @Transactional(readOnly = true)
+    public NoteDto getNoteById(Long noteId, User user){
+        return noteRepository.findDtoById(noteId, user.getId())
+                .map(note -> noteAutosaveBuffer.overlay(note, user.getId()))
+                .orElseThrow(
                 ()-> {
                     logger.error("Note with id: {}, not found", noteId);
                     return new ResourceNotFoundException("Note with id: {}, not found" + noteId);
                 });
-        return toDto(note);
 
     }
 
-    public NoteDto updateNote(Long id, Note note){
-        Note existingNote = noteRepository.findById(id).orElseThrow(
-                ()-> {
-                    logger.error("Note not found with id: {}", id);
-                    return new ResourceNotFoundException("Note not found with id: " + id);
-                });
+    public NoteDto updateNote(Long id, Note note, String username){
+        return updateNote(id, note, username, null);
+    }
+
+    public NoteDto updateNote(Long id, Note note, String username, Integer expectedVersion){
+        User user = userService.findByUsernameOrEmail(username);
+
+        String violation = firstViolation(validateChanges(note));
+        if(null != violation){
+            throw new IllegalArgumentsException(violation);
+        }
+
+        // A pending autosave is written together with the update, whose fields take precedence.
+        NoteAutosaveBuffer.PendingEdit pendingEdit = noteAutosaveBuffer.pendingFor(id, user.getId());
+        NoteAutosaveBuffer.PendingEdit changes = new NoteAutosaveBuffer.PendingEdit(user.getId(),
+                StringUtils.hasText(note.getTitle()) ? note.getTitle() : null,
+                StringUtils.hasText(note.getContent()) ? note.getContent() : null,
+                null != note.getTags() ? TagConverter.normalizeTags(note.getTags()) : null);
+        if(null != pendingEdit){
+            changes = pendingEdit.merge(changes);
+        }
+
+        String content = changes.content();
+        List<String> tags = changes.tags();
+        int updated = noteRepository.updateText(id, user.getId(), changes.title(), Note.excerptOf(content),
+                null != content ? content.length() : null,
+                null != tags ? tagConverter.convertToDatabaseColumn(tags) : null, Instant.now(), expectedVersion);
+        if(updated == 0){
+            requireOwnedNote(id, user);
+            if(null != expectedVersion){
+                logger.warn("Note with id: {} was modified concurrently, expected version {}", id, expectedVersion);
+                throw new PreconditionFailedException("Note with id: " + id + " has been modified by another request");
+            }
+            logger.error("Note not found with id: {}", id);
+            throw new ResourceNotFoundException("Note not found with id: " + id);
+        }
+        if(null != content){
+            noteRepository.upsertBody(id, contentConverter.convertToDatabaseColumn(content));
+        }
+        if(null != tags){
+            noteRepository.deleteTagIndex(id);
+            tags.forEach(tag -> noteRepository.insertTagIndex(id, tag));
+        }
+        evictCachedNote(id);
+        noteAutosaveBuffer.discard(id, pendingEdit);
+
+        NoteDto savedNote = getNoteById(id, user);
+        noteSearchIndex.index(user.getId(), id, savedNote.getTitle(), savedNote.getContent());
+        noteEventBus.publish(user.getId(), NoteEvent.of(NoteEvent.Type.UPDATED, savedNote));
+
+        logger.info("Note with id: {} updated successfully at {}", savedNote.getId(), savedNote.getUpdatedAt());
+        return savedNote;
+    }
+
+    public void autosaveNote(Long id, Note note, String username){
+        User user = userService.findByUsernameOrEmail(username);
+
+        String violation = firstViolation(validateChanges(note));
+        if(null != violation){
+            throw new IllegalArgumentsException(violation);
+        }
+        if(!noteAutosaveBuffer.isPendingFor(id, user.getId())
+                && !noteRepository.existsByIdAndUserIdAndDeletedAtIsNull(id, user.getId())){
+            logger.error("Note not found with id: {}", id);
+            throw new ResourceNotFoundException("Note not found with id: " + id);
+        }
+
+        noteAutosaveBuffer.accept(id, user.getId(),
+                StringUtils.hasText(note.getTitle()) ? note.getTitle() : null,
+                StringUtils.hasText(note.getContent()) ? note.getContent() : null,
+                null != note.getTags() ? TagConverter.normalizeTags(note.getTags()) : null);
+        logger.debug("Autosave for note with id: {} buffered", id);
+    }
+
+    public boolean hasPendingAutosave(Long noteId, User user){
+        return noteAutosaveBuffer.isPendingFor(noteId, user.getId());
+    }
 
+    private void applyChanges(Note existingNote, Note note){
         if(StringUtils.hasText(note.getContent())){
             existingNote.setContent(note.getContent());
         }
@@ -83,74 +227,440 @@ public NoteDto createNote(Note request, String username){
         if(null !=  note.getTags()){
             existingNote.setTags(TagConverter.normalizeTags(note.getTags()));
         }
+    }
 
-        Note savedNote = noteRepository.save(existingNote);
+    public List<BatchItemResult> createNotes(List<Note> requests, String username){
+        checkBatchSize(requests);
+        User user = userService.findByUsernameOrEmail(username);
+
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        List<Note> notes = new ArrayList<>(requests.size());
+        List<Integer> indexes = new ArrayList<>(requests.size());
+
+        for(int i = 0; i < requests.size(); i++){
+            Note request = requests.get(i);
+            String violation = firstViolation(validator.validate(request));
+            if(null != violation){
+                results.add(BatchItemResult.failed(i, null, violation));
+                continue;
+            }
+
+            Note note = new Note();
+            note.setUser(user);
+            note.setTags(TagConverter.normalizeTags(request.getTags()));
+            note.setContent(request.getContent());
+            note.setTitle(request.getTitle());
+            notes.add(note);
+            indexes.add(i);
+            results.add(null);
+        }
 
-        logger.info("Note with id: {} updated successfully at {}", savedNote.getId(), savedNote.getUpdatedAt());
-        return toDto(savedNote);
+        List<Note> savedNotes = noteRepository.saveAll(notes);
+        for(int i = 0; i < savedNotes.size(); i++){
+            Note savedNote = savedNotes.get(i);
+            noteSearchIndex.index(savedNote);
+            results.set(indexes.get(i), BatchItemResult.succeeded(indexes.get(i), savedNote.getId()));
+        }
+        noteEventBus.publish(user.getId(), () -> savedNotes.stream()
+                .map(note -> NoteEvent.of(NoteEvent.Type.CREATED, note))
+                .toList());
+
+        logger.info("Batch created {} of {} notes for user {}", savedNotes.size(), requests.size(), username);
+        return results;
     }
 
-    public void deleteNote(Long noteId){
-        Note note = noteRepository.findById(noteId).orElseThrow(() -> {
-            logger.error("Note not found with id: {}", noteId);
-            return new ResourceNotFoundException("Note not found with id: " + noteId);
-        });
+    public List<BatchItemResult> updateNotes(List<Note> changes, String username){
+        checkBatchSize(changes);
+        User user = userService.findByUsernameOrEmail(username);
+        Map<Long, Note> notes = findOwnedActiveNotes(changes.stream().map(Note::getId).toList(), user);
+
+        List<BatchItemResult> results = new ArrayList<>(changes.size());
+        List<Note> updatedNotes = new ArrayList<>(changes.size());
+        for(int i = 0; i < changes.size(); i++){
+            Note change = changes.get(i);
+            Note existingNote = null != change.getId() ? notes.get(change.getId()) : null;
+            if(null == existingNote){
+                results.add(BatchItemResult.failed(i, change.getId(), "Note not found with id: " + change.getId()));
+                continue;
+            }
+
+            String violation = firstViolation(validateChanges(change));
+            if(null != violation){
+                results.add(BatchItemResult.failed(i, change.getId(), violation));
+                continue;
+            }
+
+            NoteAutosaveBuffer.PendingEdit pendingEdit = noteAutosaveBuffer.pendingFor(existingNote.getId(), user.getId());
+            if(null != pendingEdit){
+                pendingEdit.applyTo(existingNote);
+            }
+            applyChanges(existingNote, change);
+            noteAutosaveBuffer.discard(existingNote.getId(), pendingEdit);
+            noteSearchIndex.index(existingNote);
+            updatedNotes.add(existingNote);
+            results.add(BatchItemResult.succeeded(i, existingNote.getId()));
+        }
+        noteEventBus.publish(user.getId(), () -> updatedNotes.stream()
+                .map(note -> NoteEvent.of(NoteEvent.Type.UPDATED, note))
+                .toList());
+
+        logger.info("Batch updated notes for user {}", username);
+        return results;
+    }
+
+    public List<BatchItemResult> deleteNotes(List<Long> noteIds, String username){
+        checkBatchSize(noteIds);
+        User user = userService.findByUsernameOrEmail(username);
+        Map<Long, Note> notes = findOwnedActiveNotes(noteIds, user);
+        Instant now = Instant.now();
+
+        List<BatchItemResult> results = new ArrayList<>(noteIds.size());
+        List<NoteEvent> events = new ArrayList<>(noteIds.size());
+        for(int i = 0; i < noteIds.size(); i++){
+            Long noteId = noteIds.get(i);
+            Note note = null != noteId ? notes.remove(noteId) : null;
+            if(null == note){
+                results.add(BatchItemResult.failed(i, noteId, "Note not found with id: " + noteId));
+                continue;
+            }
+
+            note.setDeletedAt(now);
+            noteAutosaveBuffer.discard(noteId);
+            noteSearchIndex.remove(user.getId(), noteId);
+            events.add(NoteEvent.deleted(noteId));
+            results.add(BatchItemResult.succeeded(i, noteId));
+        }
+        noteEventBus.publish(user.getId(), () -> events);
+
+        logger.info("Batch deleted notes for user {}", username);
+        return results;
+    }
+
+    private Map<Long, Note> findOwnedActiveNotes(List<Long> noteIds, User user){
+        List<Long> ids = noteIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, Note> notes = new HashMap<>();
+        for(Note note : noteRepository.findAllById(ids)){
+            if(null == note.getDeletedAt() && user.getId().equals(note.getUser().getId())){
+                notes.put(note.getId(), note);
+            }
+        }
+        return notes;
+    }
+
+    private Set<ConstraintViolation<Note>> validateChanges(Note change){
+        Set<ConstraintViolation<Note>> violations = new HashSet<>();
+        if(StringUtils.hasText(change.getTitle())){
+            violations.addAll(validator.validateValue(Note.class, "title", change.getTitle()));
+        }
+        if(StringUtils.hasText(change.getContent())){
+            violations.addAll(validator.validateValue(Note.class, "content", change.getContent()));
+        }
+        return violations;
+    }
+
+    private String firstViolation(Set<ConstraintViolation<Note>> violations){
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void checkBatchSize(List<?> items){
+        if(null == items || items.isEmpty()){
+            throw new IllegalArgumentsException("Batch must contain at least one item");
+        }
+        if(items.size() > maxBatchSize){
+            throw new IllegalArgumentsException("Batch size " + items.size() + " exceeds the limit of " + maxBatchSize);
+        }
+    }
+
+    public void deleteNote(Long noteId, String username){
+        User user = userService.findByUsernameOrEmail(username);
+
+        if(noteRepository.softDelete(noteId, user.getId(), Instant.now()) == 0){
+            requireOwnedNote(noteId, user);
+            logger.warn("Note with id: {}, already deleted", noteId);
+            return;
+        }
+        evictCachedNote(noteId);
+        noteAutosaveBuffer.discard(noteId);
 
-        note.setDeletedAt(Instant.now());
-        noteRepository.save(note);
+        noteSearchIndex.remove(user.getId(), noteId);
+        noteEventBus.publish(user.getId(), NoteEvent.deleted(noteId));
         logger.info("Note with id: {}, deleted successfully", noteId);
     }
 
-    public void restoreNote(Long noteId){
-        Note note = noteRepository.findById(noteId).orElseThrow(()-> {
+    public void restoreNote(Long noteId, String username){
+        User user = userService.findByUsernameOrEmail(username);
+
+        if(noteRepository.restore(noteId, user.getId(), Instant.now()) == 0){
+            if(noteRepository.existsByIdAndUserId(noteId, user.getId())){
+                logger.warn("Note with id: {}, already restored", noteId);
+                return;
+            }
+            restoreArchivedNote(noteId, user);
+        }
+        evictCachedNote(noteId);
+
+        NoteDto note = getNoteById(noteId, user);
+        noteSearchIndex.index(user.getId(), noteId, note.getTitle(), note.getContent());
+        noteEventBus.publish(user.getId(), NoteEvent.of(NoteEvent.Type.RESTORED, note));
+        logger.info("Note with id: {}, restored successfully", noteId);
+    }
+
+    private void restoreArchivedNote(Long noteId, User user){
+        ArchivedNote archivedNote = archivedNoteRepository.findByIdAndUserId(noteId, user.getId()).orElseThrow(() -> {
             logger.error("Note not found with id: {}", noteId);
             return new ResourceNotFoundException("Note not found with id: " + noteId);
         });
 
-        if(null == note.getDeletedAt()){
-            logger.warn("Note with id: {}, already restored", noteId);
-        } else {
-            note.setDeletedAt(null);
-            logger.info("Note with id: {}, restored successfully", noteId);
+        archivedNoteRepository.restoreNote(noteId, user.getId(), Instant.now());
+        archivedNoteRepository.restoreBody(noteId);
+        TagConverter.normalizeTags(archivedNote.getTags()).forEach(tag -> noteRepository.insertTagIndex(noteId, tag));
+        archivedNoteRepository.deleteArchived(noteId);
+        logger.info("Note with id: {}, restored from the archive", noteId);
+    }
+
+    public int deleteNotesByTags(List<String> tags, String username){
+        List<String> normalizedTags = TagConverter.normalizeTags(tags);
+        if(normalizedTags.isEmpty()){
+            throw new IllegalArgumentsException("At least one tag is required");
+        }
+        User user = userService.findByUsernameOrEmail(username);
+
+        int deleted = noteRepository.softDeleteByTags(user.getId(), normalizedTags, Instant.now());
+        if(deleted > 0){
+            noteSearchIndex.evict(user.getId());
+            noteEventBus.publish(user.getId(), NoteEvent.resync());
         }
+
+        logger.info("{} notes tagged {} deleted for user {}", deleted, normalizedTags, username);
+        return deleted;
+    }
+
+    private static Long ownerId(User user){
+        return null != user ? user.getId() : null;
     }
 
-    public List<NoteDto> findAllActiveNotes(){
-        List<Note> notes = noteRepository.findAll();
-        return notes.stream().map(this::toDto).toList();
+    private void requireOwnedNote(Long noteId, User user){
+        if(!noteRepository.existsByIdAndUserId(noteId, user.getId())){
+            logger.error("Note not found with id: {}", noteId);
+            throw new ResourceNotFoundException("Note not found with id: " + noteId);
+        }
+    }
+
+    /**
+     * Drops the note from the second-level cache, now and again after commit, so that a reader
+     * racing the transaction cannot put the old row back. The single-note statements leave the
+     * rest of the notes region cached.
+     */
+    private void evictCachedNote(Long noteId){
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Note.class, noteId);
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(Note.class, noteId);
+                }
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<NoteSummary> findAllActiveNotes(User user){
+        Specification<Note> spec = NoteSpecification.isNotDeleted().and(NoteSpecification.belongsToUser(user));
+        List<NoteSummary> notes = noteRepository.findSummaries(spec, Pageable.unpaged()).getContent();
+        notes.forEach(note -> noteAutosaveBuffer.overlay(note, ownerId(user)));
+        return notes;
+    }
+
+    /**
+     * Returns the user's notes created, updated or soft-deleted after the token, oldest first.
+     * Changes younger than the settle window are held back so that a transaction committing
+     * after a newer one cannot slip in behind a token a client has already been given. Runs
+     * on the primary for the same reason: a lagging replica would hide committed changes.
+     */
+    public ChangeFeedResponse findChanges(User user, SyncToken since, int limit){
+        Instant now = Instant.now();
+        if(null != since && retentionEnabled && since.getUpdatedAt().isBefore(now.minus(retentionDeletedAfter))){
+            throw new SyncTokenExpiredException("Sync token is older than the deleted note retention period, start a full sync");
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, maxBatchSize));
+        SyncToken from = null != since ? since : SyncToken.initial();
+        SyncToken horizon = new SyncToken(now.minus(changeSettleWindow), 0L);
+        List<Note> notes = noteRepository.findChangesSince(user.getId(), from.getUpdatedAt(), from.getId(),
+                horizon.getUpdatedAt(), null != since, Limit.of(pageSize + 1));
+
+        boolean hasMore = notes.size() > pageSize;
+        List<Note> page = hasMore ? notes.subList(0, pageSize) : notes;
+        List<NoteChange> changes = new ArrayList<>(page.size());
+        for(Note note : page){
+            if(null != note.getDeletedAt()){
+                changes.add(new NoteChange(note.getId(), NoteChange.Type.DELETED, note.getVersion(), note.getUpdatedAt(), null));
+            } else {
+                NoteChange.Type type = note.getCreatedAt().isAfter(from.getUpdatedAt())
+                        ? NoteChange.Type.CREATED : NoteChange.Type.UPDATED;
+                changes.add(new NoteChange(note.getId(), type, note.getVersion(), note.getUpdatedAt(),
+                        toDto(note, user.getUsername())));
+            }
+        }
+
+        SyncToken next = from;
+        if(!page.isEmpty()){
+            Note last = page.get(page.size() - 1);
+            next = new SyncToken(last.getUpdatedAt(), last.getId());
+        }
+        if(!hasMore && horizon.isAfter(next)){
+            next = horizon;
+        }
+        return new ChangeFeedResponse(changes, next.encode(), hasMore);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportActiveNotes(User user, Consumer<NoteDto> consumer){
+        try (Stream<Note> notes = noteRepository.streamActiveByUserId(user.getId())) {
+            notes.forEach(note -> {
+                consumer.accept(toDto(note, user.getUsername()));
+                entityManager.detach(note);
+            });
+        }
     }
 
     private NoteDto toDto(Note note){
+        return toDto(note, note.getUser().getUsername());
+    }
+
+    private NoteDto toDto(Note note, String username){
         return new NoteDto(
                 note.getId(),
                 note.getTitle(),
                 note.getContent(),
                 note.getTags(),
-                note.getUser().getUsername(),
+                username,
                 note.getCreatedAt(),
-                note.getUpdatedAt()
+                note.getUpdatedAt(),
+                note.getVersion()
         );
     }
 
-    private Specification<Note> buildSearchSpecification(User user, List<String> tags, String searchTerm){
+    private Specification<Note> buildSearchSpecification(User user, List<String> tags, TagMatch tagMatch,
+                                                         String searchTerm, Set<Long> matchingIds){
         Specification<Note> spec = NoteSpecification.isNotDeleted();
 
        if(null != user) spec = spec.and(NoteSpecification.belongsToUser(user));
-       if(null != tags && !tags.isEmpty()) spec = spec.and(NoteSpecification.hasAnyTags(tags));
-       if(null != searchTerm) spec = spec.and(NoteSpecification.containSearchTerm(searchTerm));
+       if(null != tags && !tags.isEmpty()) spec = spec.and(NoteSpecification.hasTags(tags, tagMatch));
+       if(null != matchingIds) spec = spec.and(NoteSpecification.hasIdIn(matchingIds));
+       else if(null != searchTerm && null == user) spec = spec.and(NoteSpecification.containSearchTerm(searchTerm));
 
        return spec;
 
     }
 
-    public Page<NoteDto> searchNotes(User user, List<String> tags, String searchTerm, Pageable page){
+    @Transactional(readOnly = true)
+    public Optional<NoteVersion> findNoteVersion(Long noteId, User user){
+        return noteRepository.findVersionById(noteId, user.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public Page<NoteSummary> searchNotes(User user, List<String> tags, String searchTerm, Pageable page){
+        return searchNotes(user, tags, TagMatch.ANY, searchTerm, page);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<NoteSummary> searchNotes(User user, List<String> tags, TagMatch tagMatch, String searchTerm, Pageable page){
         logger.info("Searching notes for user: {}", user != null ? user.getUsername() : "null");
 
-        Specification<Note> spec = buildSearchSpecification(user, tags, searchTerm);
-        Page<Note> notes = noteRepository.findAll(spec, page);
+        Set<Long> matchingIds = findMatchingIds(user, searchTerm);
+        if(null != matchingIds && matchingIds.isEmpty()){
+            return new PageImpl<>(List.of(), page, 0);
+        }
+
+        Specification<Note> spec = buildSearchSpecification(user, tags, tagMatch, searchTerm, matchingIds);
+        Page<NoteSummary> notes = null == user && shardRouter.shardCount() > 1
+                ? searchAllShards(spec, page)
+                : noteRepository.findSummaries(spec, page);
+        notes.forEach(note -> noteAutosaveBuffer.overlay(note, ownerId(user)));
 
         logger.info("Found {} notes out of {} total", notes.getNumberOfElements(), notes.getTotalElements());
 
-        return notes.map(this::toDto);
+        return notes;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponse<NoteSummary> searchNotes(User user, List<String> tags, TagMatch tagMatch, String searchTerm,
+                                                   NoteCursor cursor, int size){
+        if(size < 1){
+            throw new IllegalArgumentsException("size must be at least 1");
+        }
+        logger.info("Searching notes after cursor for user: {}", user != null ? user.getUsername() : "null");
+
+        Set<Long> matchingIds = findMatchingIds(user, searchTerm);
+        if(null != matchingIds && matchingIds.isEmpty()){
+            return new CursorPageResponse<>(List.of(), size, null);
+        }
+
+        Specification<Note> spec = buildSearchSpecification(user, tags, tagMatch, searchTerm, matchingIds);
+        if(!cursor.isFirst()){
+            spec = spec.and(NoteSpecification.seekAfter(
+                    cursor.getSortBy(), cursor.getDirection(), cursor.getSortKey(), cursor.getId()));
+        }
+
+        List<NoteSummary> notes = noteRepository.findSummaries(spec, cursor.toSort(), size + 1);
+        notes.forEach(note -> noteAutosaveBuffer.overlay(note, ownerId(user)));
+
+        String nextCursor = null;
+        if(notes.size() > size){
+            notes = notes.subList(0, size);
+            NoteSummary last = notes.get(size - 1);
+            Instant sortKey = "updatedAt".equals(cursor.getSortBy()) ? last.getUpdatedAt() : last.getCreatedAt();
+            nextCursor = cursor.next(sortKey, last.getId()).encode();
+        }
+
+        logger.info("Found {} notes, has next page: {}", notes.size(), nextCursor != null);
+
+        return new CursorPageResponse<>(notes, size, nextCursor);
+    }
+
+    private Page<NoteSummary> searchAllShards(Specification<Note> spec, Pageable page){
+        Pageable head = page.isPaged()
+                ? PageRequest.of(0, (int) page.getOffset() + page.getPageSize(), page.getSort())
+                : page;
+        List<Page<NoteSummary>> shardPages = shardRouter.scatter(() -> noteRepository.findSummaries(spec, head));
+
+        List<NoteSummary> merged = new ArrayList<>();
+        long total = 0;
+        for(Page<NoteSummary> shardPage : shardPages){
+            merged.addAll(shardPage.getContent());
+            total += shardPage.getTotalElements();
+        }
+        merged.sort(comparatorOf(page.getSort()));
+
+        if(page.isUnpaged()){
+            return new PageImpl<>(merged, page, total);
+        }
+        int from = (int) Math.min(page.getOffset(), merged.size());
+        int to = Math.min(from + page.getPageSize(), merged.size());
+        return new PageImpl<>(new ArrayList<>(merged.subList(from, to)), page, total);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparator<NoteSummary> comparatorOf(Sort sort){
+        Comparator<NoteSummary> comparator = (a, b) -> 0;
+        for(Sort.Order order : sort){
+            Comparator<NoteSummary> byProperty = Comparator.comparing(
+                    note -> (Comparable<Object>) new BeanWrapperImpl(note).getPropertyValue(order.getProperty()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator.thenComparing(NoteSummary::getId);
+    }
+
+    private Set<Long> findMatchingIds(User user, String searchTerm){
+        if(null == user || !StringUtils.hasText(searchTerm)){
+            return null;
+        }
+        return noteSearchIndex.search(user.getId(), searchTerm);
     }
 }
@@ -0,0 +1,76 @@
+package com.albymens.note_app.service;
+
+import com.albymens.note_app.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Per-node cache of users keyed by the username or email they were looked up with.
+ * Entries are evicted by {@link com.albymens.note_app.model.listener.UserCacheListener}
+ * whenever a user is changed through JPA, after the change commits.
+ */
+@Component
+public class UserCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cache.users.max-size:10000}")
+    private long maxSize;
+
+    @Value("${cache.users.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    private Cache<String, User> users;
+
+    @PostConstruct
+    public void init() {
+        users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    public Optional<User> get(String usernameOrEmail, Function<String, Optional<User>> loader) {
+        return Optional.ofNullable(users.get(usernameOrEmail, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Evicts the user once the current transaction commits, so that a concurrent lookup
+     * cannot cache the row as it was before the change.
+     */
+    public void evict(User user) {
+        List<String> keys = Stream.of(user.getUsername(), user.getEmail()).filter(Objects::nonNull).toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    users.invalidateAll(keys);
+                }
+            });
+        } else {
+            users.invalidateAll(keys);
+        }
+    }
+
+    public void clear() {
+        users.invalidateAll();
+    }
+}
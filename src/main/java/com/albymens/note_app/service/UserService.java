@@ -8,12 +8,14 @@ import com.albymens.note_app.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -23,10 +25,14 @@ public class UserService implements UserDetailsService {
     UserRepository userRepository;
     @Autowired
     PasswordEncoder passwordEncoder;
+    @Autowired
+    UserCache userCache;
+    @Value("${security.admin.usernames:}")
+    List<String> adminUsernames;
 
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        User user = userRepository.findByUsernameOrEmail(usernameOrEmail).orElseThrow(()-> {
+        User user = findByUsername(usernameOrEmail).orElseThrow(()-> {
             logger.error("User with username: {} not found", usernameOrEmail);
             return new UsernameNotFoundException(String.format("User with username: %s not found", usernameOrEmail));
         });
@@ -34,7 +40,7 @@ public class UserService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User
                 .withUsername(user.getUsername())
                 .password(user.getPassword())
-                .authorities("USER")
+                .authorities(adminUsernames.contains(user.getUsername()) ? new String[]{"USER", "ADMIN"} : new String[]{"USER"})
                 .build();
     }
 
@@ -55,13 +61,23 @@ public class UserService implements UserDetailsService {
     }
 
     public User findByUsernameOrEmail(String usernameOrEmail){
-        return userRepository.findByUsernameOrEmail(usernameOrEmail).orElseThrow(()-> {
+        return findByUsername(usernameOrEmail).orElseThrow(()-> {
             logger.error("User not found with username or email: {}", usernameOrEmail);
             return new  ResourceNotFoundException( "User not found with username or email: " + usernameOrEmail);
         });
     }
 
     Optional<User> findByUsername(String usernameOrEmail){
+        return userCache.get(usernameOrEmail, this::loadUser);
+    }
+
+    private Optional<User> loadUser(String usernameOrEmail){
+        if(!usernameOrEmail.contains("@")){
+            Optional<User> user = userRepository.findByNaturalId(usernameOrEmail);
+            if(user.isPresent()){
+                return user;
+            }
+        }
         return userRepository.findByUsernameOrEmail(usernameOrEmail);
     }
 
@@ -0,0 +1,60 @@
+package com.albymens.note_app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified, keyed by a SHA-256
+ * digest of the token so raw tokens are never retained. Each entry expires together with
+ * its token.
+ */
+class VerifiedTokenCache {
+
+    private static final MessageDigest SHA_256 = sha256();
+
+    private final Cache<String, Claims> entries;
+
+    VerifiedTokenCache(int maxSize) {
+        entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxSize, 0))
+                .expireAfter(Expiry.<String, Claims>creating((key, claims) ->
+                        Duration.ofMillis(claims.getExpiration().getTime() - System.currentTimeMillis())))
+                .build();
+    }
+
+    Claims get(String token) {
+        return entries.getIfPresent(digest(token));
+    }
+
+    void put(String token, Claims claims) {
+        if (claims.getExpiration() == null) {
+            return;
+        }
+        entries.put(digest(token), claims);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = (MessageDigest) SHA_256.clone();
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.albymens.note_app.sharding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shard map backed by the {@code user_shards} table on shard 0. A user without an entry is
+ * placed by hashing their id and the placement is written to the directory straight away,
+ * so adding shards later does not move existing users. Placing a user on another shard also
+ * copies their {@code users} row there, which the notes foreign key and in-shard user lookups
+ * rely on; shard 0 stays the source of truth for users.
+ */
+public class DirectoryShardMap implements ShardMap {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryShardMap.class);
+
+    private final List<DataSource> shards;
+    private final JdbcTemplate directory;
+    private final Cache<Long, Integer> placements;
+    private final Cache<String, Long> userIds;
+
+    public DirectoryShardMap(List<DataSource> shards, Duration cacheTtl) {
+        this.shards = shards;
+        this.directory = new JdbcTemplate(shards.get(0));
+        this.placements = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(cacheTtl).build();
+        this.userIds = Caffeine.newBuilder().maximumSize(100_000).build();
+    }
+
+    @Override
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public int shardOf(Long userId) {
+        return placements.get(userId, this::loadPlacement);
+    }
+
+    @Override
+    public void assign(Long userId, int shard) {
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalArgumentException("Unknown shard " + shard);
+        }
+        copyUser(userId, shard);
+        directory.update("MERGE INTO user_shards (user_id, shard) KEY (user_id) VALUES (?, ?)", userId, shard);
+        placements.invalidate(userId);
+        logger.info("User {} assigned to shard {}", userId, shard);
+    }
+
+    public Optional<Long> findUserId(String username) {
+        return Optional.ofNullable(userIds.get(username, key -> directory.query(
+                "SELECT id FROM users WHERE username = ? OR email = ?",
+                rows -> rows.next() ? rows.getLong(1) : null, key, key)));
+    }
+
+    /**
+     * Writes the user's row from shard 0 to the given shard, replacing any older copy.
+     */
+    public void copyUser(Long userId, int shard) {
+        if (shard == 0) {
+            return;
+        }
+        directory.query("SELECT id, username, email, password, created_at FROM users WHERE id = ?", rows -> {
+            new JdbcTemplate(shards.get(shard)).update(
+                    "MERGE INTO users (id, username, email, password, created_at) KEY (id) VALUES (?, ?, ?, ?, ?)",
+                    rows.getLong(1), rows.getString(2), rows.getString(3), rows.getString(4), rows.getTimestamp(5));
+        }, userId);
+    }
+
+    private Integer loadPlacement(Long userId) {
+        List<Integer> shard = directory.queryForList("SELECT shard FROM user_shards WHERE user_id = ?", Integer.class, userId);
+        if (!shard.isEmpty()) {
+            return shard.get(0);
+        }
+
+        int placed = Math.floorMod(Long.hashCode(userId), shards.size());
+        copyUser(userId, placed);
+        directory.update("INSERT INTO user_shards (user_id, shard) SELECT ?, ? WHERE NOT EXISTS " +
+                "(SELECT 1 FROM user_shards WHERE user_id = ?)", userId, placed, userId);
+        return directory.queryForObject("SELECT shard FROM user_shards WHERE user_id = ?", Integer.class, userId);
+    }
+}
@@ -0,0 +1,44 @@
+package com.albymens.note_app.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard the current thread is working against. Connections opened while no shard
+ * is set go to shard 0, which also holds the users table and the shard directory.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> current = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return current.get();
+    }
+
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = current.get();
+        current.set(shard);
+        try {
+            return action.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void run(int shard, Runnable action) {
+        call(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            current.remove();
+        } else {
+            current.set(shard);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.albymens.note_app.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Connection pools of all shards, indexed by shard number.
+ */
+public record ShardDataSources(List<DataSource> shards) implements AutoCloseable {
+
+    @Override
+    public void close() {
+        for (DataSource shard : shards) {
+            if (shard instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.albymens.note_app.sharding;
+
+import com.albymens.note_app.repository.NoteRepository;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint listing the number of notes per shard and moving a user to another shard.
+ */
+@Endpoint(id = "shards")
+public class ShardEndpoint {
+
+    private final ShardRouter shardRouter;
+    private final ShardRebalancer shardRebalancer;
+    private final NoteRepository noteRepository;
+
+    public ShardEndpoint(ShardRouter shardRouter, ShardRebalancer shardRebalancer, NoteRepository noteRepository) {
+        this.shardRouter = shardRouter;
+        this.shardRebalancer = shardRebalancer;
+        this.noteRepository = noteRepository;
+    }
+
+    @ReadOperation
+    public Map<Integer, Long> notesPerShard() {
+        List<Long> counts = shardRouter.scatter(noteRepository::count);
+        Map<Integer, Long> notes = new LinkedHashMap<>();
+        for (int shard = 0; shard < counts.size(); shard++) {
+            notes.put(shard, counts.get(shard));
+        }
+        return notes;
+    }
+
+    @WriteOperation
+    public Map<String, Object> moveUser(long userId, int shard) throws InterruptedException {
+        int moved = shardRebalancer.moveUser(userId, shard);
+        return Map.of("userId", userId, "shard", shard, "notesMoved", moved);
+    }
+}
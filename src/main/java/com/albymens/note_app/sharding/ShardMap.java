@@ -0,0 +1,38 @@
+package com.albymens.note_app.sharding;
+
+/**
+ * Decides which shard holds a user's notes.
+ */
+public interface ShardMap {
+
+    int shardCount();
+
+    int shardOf(Long userId);
+
+    /**
+     * Points the user at a shard. Only the rebalancer should call this for users that
+     * already have notes, after their rows have been copied to the new shard.
+     */
+    void assign(Long userId, int shard);
+
+    static ShardMap single() {
+        return new ShardMap() {
+            @Override
+            public int shardCount() {
+                return 1;
+            }
+
+            @Override
+            public int shardOf(Long userId) {
+                return 0;
+            }
+
+            @Override
+            public void assign(Long userId, int shard) {
+                if (shard != 0) {
+                    throw new IllegalArgumentException("Sharding is disabled, only shard 0 exists");
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package com.albymens.note_app.sharding;
+
+import com.albymens.note_app.exception.ServerBusyException;
+import com.albymens.note_app.service.NoteAutosaveBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves one user's notes to another shard while the application keeps serving requests.
+ * Rows are first copied while the user keeps working. The user's requests are then held
+ * off briefly while the rows that changed in the meantime are copied and the directory is
+ * switched, after which the rows are removed from the old shard.
+ */
+public class ShardRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final String NOTE_CHANGES = "SELECT id, version, updated_at, deleted_at FROM notes WHERE user_id = ?";
+
+    private final List<DataSource> shards;
+    private final DirectoryShardMap shardMap;
+    private final ShardRouter shardRouter;
+    private final NoteAutosaveBuffer noteAutosaveBuffer;
+    private final int batchSize;
+    private final Duration drainTimeout;
+    // Held for the whole move, which copies rows over JDBC; a monitor would pin a virtual thread.
+    private final ReentrantLock moveLock = new ReentrantLock();
+
+    public ShardRebalancer(List<DataSource> shards, DirectoryShardMap shardMap, ShardRouter shardRouter,
+                           NoteAutosaveBuffer noteAutosaveBuffer, int batchSize, Duration drainTimeout) {
+        this.shards = shards;
+        this.shardMap = shardMap;
+        this.shardRouter = shardRouter;
+        this.noteAutosaveBuffer = noteAutosaveBuffer;
+        this.batchSize = batchSize;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Moves the user's notes, including archived ones, to the target shard and returns the
+     * number of notes moved.
+     */
+    public int moveUser(Long userId, int target) throws InterruptedException {
+        moveLock.lock();
+        try {
+            return move(userId, target);
+        } finally {
+            moveLock.unlock();
+        }
+    }
+
+    private int move(Long userId, int target) throws InterruptedException {
+        int source = shardMap.shardOf(userId);
+        if (source == target) {
+            return 0;
+        }
+        if (target < 0 || target >= shards.size()) {
+            throw new IllegalArgumentException("Unknown shard " + target);
+        }
+
+        JdbcTemplate from = new JdbcTemplate(shards.get(source));
+        JdbcTemplate to = new JdbcTemplate(shards.get(target));
+        logger.info("Moving notes of user {} from shard {} to shard {}", userId, source, target);
+
+        shardMap.copyUser(userId, target);
+        copyChangedNotes(from, to, userId);
+
+        if (!shardRouter.freeze(userId, drainTimeout)) {
+            throw new ServerBusyException("Requests of user " + userId + " did not finish in time, move aborted");
+        }
+        int moved;
+        try {
+            noteAutosaveBuffer.flush();
+            moved = copyChangedNotes(from, to, userId);
+            copyRows(from, to, "notes_archive", "id", "SELECT * FROM notes_archive WHERE user_id = ?", userId);
+            shardMap.assign(userId, target);
+        } finally {
+            shardRouter.unfreeze(userId);
+        }
+
+        from.update("DELETE FROM notes_archive WHERE user_id = ?", userId);
+        int deleted;
+        do {
+            deleted = from.update("DELETE FROM notes WHERE id IN (SELECT id FROM notes WHERE user_id = ? LIMIT ?)",
+                    userId, batchSize);
+        } while (deleted == batchSize);
+
+        logger.info("Moved {} notes of user {} from shard {} to shard {}", moved, userId, source, target);
+        return moved;
+    }
+
+    /**
+     * Brings the target's copy of the user's notes in line with the source by comparing
+     * versions, and returns the number of notes the source holds.
+     */
+    private int copyChangedNotes(JdbcTemplate from, JdbcTemplate to, Long userId) {
+        Map<Long, List<Object>> sourceNotes = noteVersions(from, userId);
+        Map<Long, List<Object>> targetNotes = noteVersions(to, userId);
+
+        List<Long> changed = new ArrayList<>();
+        sourceNotes.forEach((id, version) -> {
+            if (!Objects.equals(version, targetNotes.remove(id))) {
+                changed.add(id);
+            }
+        });
+        for (List<Long> ids : partition(new ArrayList<>(targetNotes.keySet()))) {
+            to.update("DELETE FROM notes WHERE id IN (" + placeholders(ids.size()) + ")", ids.toArray());
+        }
+
+        for (List<Long> ids : partition(changed)) {
+            Object[] args = ids.toArray();
+            String in = "(" + placeholders(ids.size()) + ")";
+            copyRows(from, to, "notes", "id", "SELECT * FROM notes WHERE id IN " + in, args);
+            copyRows(from, to, "note_bodies", "note_id", "SELECT * FROM note_bodies WHERE note_id IN " + in, args);
+            to.update("DELETE FROM note_tags WHERE note_id IN " + in, args);
+            copyRows(from, to, "note_tags", "note_id, tag", "SELECT * FROM note_tags WHERE note_id IN " + in, args);
+        }
+        return sourceNotes.size();
+    }
+
+    private Map<Long, List<Object>> noteVersions(JdbcTemplate jdbc, Long userId) {
+        Map<Long, List<Object>> versions = new HashMap<>();
+        jdbc.query(NOTE_CHANGES, rows -> {
+            versions.put(rows.getLong(1), List.of(rows.getInt(2),
+                    Objects.toString(rows.getTimestamp(3)), Objects.toString(rows.getTimestamp(4))));
+        }, userId);
+        return versions;
+    }
+
+    private void copyRows(JdbcTemplate from, JdbcTemplate to, String table, String key, String query, Object... args) {
+        from.query(query, (ResultSet rows) -> {
+            ResultSetMetaData metaData = rows.getMetaData();
+            int columns = metaData.getColumnCount();
+            StringJoiner names = new StringJoiner(", ");
+            for (int column = 1; column <= columns; column++) {
+                names.add(metaData.getColumnName(column));
+            }
+            String merge = "MERGE INTO " + table + " (" + names + ") KEY (" + key + ") VALUES (" + placeholders(columns) + ")";
+
+            List<Object[]> batch = new ArrayList<>(batchSize);
+            while (rows.next()) {
+                batch.add(readRow(rows, columns));
+                if (batch.size() == batchSize) {
+                    to.batchUpdate(merge, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                to.batchUpdate(merge, batch);
+            }
+            return null;
+        }, args);
+    }
+
+    private Object[] readRow(ResultSet rows, int columns) throws SQLException {
+        Object[] row = new Object[columns];
+        for (int column = 1; column <= columns; column++) {
+            Object value = rows.getObject(column);
+            row[column - 1] = value instanceof Blob blob ? blob.getBytes(1, (int) blob.length()) : value;
+        }
+        return row;
+    }
+
+    private List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += batchSize) {
+            batches.add(ids.subList(start, Math.min(start + batchSize, ids.size())));
+        }
+        return batches;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
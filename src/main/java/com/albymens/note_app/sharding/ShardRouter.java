@@ -0,0 +1,177 @@
+package com.albymens.note_app.sharding;
+
+import com.albymens.note_app.config.ThreadFactories;
+import com.albymens.note_app.exception.ServerBusyException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs work against the shard that holds a user's notes, or against every shard for
+ * admin-wide work. Keeps count of the work in flight per user so that the rebalancer can
+ * stop new work for a user and wait for running work to finish before moving their notes.
+ */
+@Component
+public class ShardRouter implements DisposableBean {
+
+    private final ShardMap shardMap;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService scatterExecutor;
+    private final Set<Long> frozen = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> inFlight = new ConcurrentHashMap<>();
+
+    public ShardRouter(ShardMap shardMap, PlatformTransactionManager transactionManager,
+                       ThreadFactories threadFactories) {
+        this.shardMap = shardMap;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.scatterExecutor = shardMap.shardCount() > 1
+                ? Executors.newFixedThreadPool(shardMap.shardCount(), threadFactories.blocking("note-shard-"))
+                : null;
+    }
+
+    public int shardCount() {
+        return shardMap.shardCount();
+    }
+
+    public int shardOf(Long userId) {
+        return shardMap.shardOf(userId);
+    }
+
+    public <T> T callAs(Long userId, Supplier<T> action) {
+        Integer previous = ShardContext.current();
+        enter(userId);
+        try {
+            return action.get();
+        } finally {
+            exit(userId);
+            ShardContext.set(previous);
+        }
+    }
+
+    public void runAs(Long userId, Runnable action) {
+        callAs(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action once per shard, one shard after the other.
+     */
+    public void forEachShard(IntConsumer action) {
+        for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+            int current = shard;
+            ShardContext.run(current, () -> action.accept(current));
+        }
+    }
+
+    /**
+     * Runs the query on every shard in parallel, each in its own read-only transaction, and
+     * returns the results in shard order.
+     */
+    public <T> List<T> scatter(Supplier<T> query) {
+        if (scatterExecutor == null) {
+            T result = ShardContext.call(0, () -> readOnlyTransaction.execute(status -> query.get()));
+            return Collections.singletonList(result);
+        }
+
+        List<Future<T>> futures = new ArrayList<>(shardMap.shardCount());
+        for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+            int current = shard;
+            futures.add(scatterExecutor.submit(
+                    () -> ShardContext.call(current, () -> readOnlyTransaction.execute(status -> query.get()))));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Registers work of the user that does not run on one thread, such as a reactive read,
+     * and returns the user's shard. Every call must be paired with {@link #release}.
+     */
+    public int acquire(Long userId) {
+        inFlight.merge(userId, 1, Integer::sum);
+        if (frozen.contains(userId)) {
+            exit(userId);
+            throw new ServerBusyException("Notes are being moved to another shard, please retry shortly");
+        }
+        try {
+            return shardMap.shardOf(userId);
+        } catch (RuntimeException e) {
+            exit(userId);
+            throw e;
+        }
+    }
+
+    public void release(Long userId) {
+        exit(userId);
+    }
+
+    void enter(Long userId) {
+        ShardContext.set(acquire(userId));
+    }
+
+    void exit(Long userId) {
+        inFlight.computeIfPresent(userId, (id, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Rejects new work for the user and waits for work already running to finish.
+     * Returns false, leaving the user unfrozen, if that does not happen within the timeout.
+     */
+    boolean freeze(Long userId, Duration timeout) throws InterruptedException {
+        frozen.add(userId);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.containsKey(userId)) {
+            if (System.nanoTime() > deadline) {
+                frozen.remove(userId);
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    void unfreeze(Long userId) {
+        frozen.remove(userId);
+    }
+
+    @Override
+    public void destroy() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.albymens.note_app.sharding;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Points note requests at the authenticated user's shard for the length of the request.
+ */
+class ShardRoutingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String USER_ID_ATTRIBUTE = ShardRoutingInterceptor.class.getName() + ".userId";
+
+    private final DirectoryShardMap shardMap;
+    private final ShardRouter shardRouter;
+
+    ShardRoutingInterceptor(DirectoryShardMap shardMap, ShardRouter shardRouter) {
+        this.shardMap = shardMap;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return true;
+        }
+
+        shardMap.findUserId(authentication.getName()).ifPresent(userId -> {
+            shardRouter.enter(userId);
+            request.setAttribute(USER_ID_ATTRIBUTE, userId);
+        });
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        Object userId = request.getAttribute(USER_ID_ATTRIBUTE);
+        if (userId != null) {
+            request.removeAttribute(USER_ID_ATTRIBUTE);
+            shardRouter.exit((Long) userId);
+        }
+        ShardContext.set(null);
+    }
+}
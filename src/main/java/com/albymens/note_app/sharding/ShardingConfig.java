@@ -0,0 +1,175 @@
+package com.albymens.note_app.sharding;
+
+import com.albymens.note_app.repository.NoteRepository;
+import com.albymens.note_app.service.NoteAutosaveBuffer;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code notes.sharding.enabled=true}, shard 0 is {@code spring.datasource} and holds the
+ * users and the shard directory, and each {@code notes.sharding.shards[n]} entry adds shard
+ * n + 1. Every shard gets the full Flyway schema and a disjoint range of note ids, so notes
+ * can be moved between shards without renumbering.
+ */
+@Configuration
+public class ShardingConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "notes.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    static class Unsharded {
+
+        @Bean
+        public ShardMap shardMap() {
+            return ShardMap.single();
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "notes.sharding.enabled", havingValue = "true")
+    static class Sharded {
+
+        private static final Logger logger = LoggerFactory.getLogger(Sharded.class);
+        private static final int NOTE_ID_ALLOCATION_SIZE = 50;
+
+        @Bean
+        public ShardDataSources shardDataSources(DataSourceProperties dataSourceProperties, Environment environment,
+                                                 @Value("${spring.flyway.locations:classpath:db/migration}") String[] locations,
+                                                 @Value("${notes.sharding.id-range:1000000000000}") long idRange) {
+            Binder binder = Binder.get(environment);
+            List<DataSource> shards = new ArrayList<>();
+            shards.add(pool(dataSourceProperties, binder, "spring.datasource.hikari", 0));
+
+            List<DataSourceProperties> extraShards = binder
+                    .bind("notes.sharding.shards", Bindable.listOf(DataSourceProperties.class))
+                    .orElse(List.of());
+            for (int i = 0; i < extraShards.size(); i++) {
+                int shard = i + 1;
+                HikariDataSource dataSource = pool(extraShards.get(i), binder, "notes.sharding.shards[" + i + "].hikari", shard);
+                Flyway.configure().dataSource(dataSource).locations(locations).baselineOnMigrate(true).load().migrate();
+                reserveIdRange(dataSource, shard * idRange + 1);
+                shards.add(dataSource);
+            }
+
+            logger.info("Sharding notes across {} shards", shards.size());
+            return new ShardDataSources(List.copyOf(shards));
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardDataSources shardDataSources) {
+            ShardRoutingDataSource routing = new ShardRoutingDataSource(shardDataSources.shards());
+            routing.afterPropertiesSet();
+            return new LazyConnectionDataSourceProxy(routing);
+        }
+
+        /**
+         * Hibernate creates the global temporary tables it uses for bulk updates of notes once
+         * at startup, which only reaches shard 0, so they are copied to the other shards.
+         */
+        @Bean
+        public SmartInitializingSingleton shardTemporaryTables(ShardDataSources shardDataSources,
+                                                               EntityManagerFactory entityManagerFactory) {
+            return () -> copyTemporaryTables(shardDataSources.shards());
+        }
+
+        @Bean
+        public DirectoryShardMap shardMap(ShardDataSources shardDataSources,
+                                          @Value("${notes.sharding.directory-cache-ttl:30s}") Duration cacheTtl) {
+            return new DirectoryShardMap(shardDataSources.shards(), cacheTtl);
+        }
+
+        @Bean
+        public ShardRebalancer shardRebalancer(ShardDataSources shardDataSources, DirectoryShardMap shardMap,
+                                               ShardRouter shardRouter, NoteAutosaveBuffer noteAutosaveBuffer,
+                                               @Value("${notes.sharding.rebalance.batch-size:500}") int batchSize,
+                                               @Value("${notes.sharding.rebalance.drain-timeout:10s}") Duration drainTimeout) {
+            return new ShardRebalancer(shardDataSources.shards(), shardMap, shardRouter, noteAutosaveBuffer,
+                    batchSize, drainTimeout);
+        }
+
+        @Bean
+        public ShardEndpoint shardEndpoint(ShardRouter shardRouter, ShardRebalancer shardRebalancer,
+                                           NoteRepository noteRepository) {
+            return new ShardEndpoint(shardRouter, shardRebalancer, noteRepository);
+        }
+
+        @Bean
+        public WebMvcConfigurer shardRoutingConfigurer(DirectoryShardMap shardMap, ShardRouter shardRouter) {
+            return new WebMvcConfigurer() {
+                @Override
+                public void addInterceptors(InterceptorRegistry registry) {
+                    registry.addInterceptor(new ShardRoutingInterceptor(shardMap, shardRouter))
+                            .addPathPatterns("/api/notes/**");
+                }
+            };
+        }
+
+        /**
+         * Carries the request's shard over to async work such as streamed exports.
+         */
+        @Bean
+        public TaskDecorator shardContextTaskDecorator() {
+            return task -> {
+                Integer shard = ShardContext.current();
+                return shard == null ? task : () -> ShardContext.run(shard, task);
+            };
+        }
+
+        private static HikariDataSource pool(DataSourceProperties properties, Binder binder, String hikariPrefix, int shard) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            binder.bind(hikariPrefix, Bindable.ofInstance(dataSource));
+            dataSource.setPoolName("shard-" + shard);
+            return dataSource;
+        }
+
+        private static void copyTemporaryTables(List<DataSource> shards) {
+            JdbcTemplate directory = new JdbcTemplate(shards.get(0));
+            List<String> tables = directory.queryForList("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                    "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_TYPE = 'GLOBAL TEMPORARY'", String.class);
+            for (String table : tables) {
+                List<String> columns = directory.query("SELECT COLUMN_NAME, DATA_TYPE, CHARACTER_MAXIMUM_LENGTH, IS_NULLABLE " +
+                                "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION",
+                        (rows, rowNum) -> "\"" + rows.getString(1) + "\" " + rows.getString(2)
+                                + (rows.getObject(3) != null ? "(" + rows.getLong(3) + ")" : "")
+                                + ("NO".equals(rows.getString(4)) ? " NOT NULL" : ""),
+                        table);
+                String ddl = "CREATE GLOBAL TEMPORARY TABLE IF NOT EXISTS \"" + table + "\" (" + String.join(", ", columns) + ")";
+                shards.subList(1, shards.size()).forEach(shard -> new JdbcTemplate(shard).execute(ddl));
+            }
+        }
+
+        private static void reserveIdRange(DataSource dataSource, long start) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            // Hibernate's pooled optimizer takes each sequence value as the top of a block of ids.
+            long top = start + NOTE_ID_ALLOCATION_SIZE - 1;
+            Long next = jdbc.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'NOTES_SEQ'", Long.class);
+            if (next != null && next < top) {
+                jdbc.execute("ALTER SEQUENCE notes_seq RESTART WITH " + top);
+            }
+        }
+    }
+}
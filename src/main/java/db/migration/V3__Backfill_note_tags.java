@@ -0,0 +1,56 @@
+package db.migration;
+
+import com.albymens.note_app.model.converter.TagConverter;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+public class V3__Backfill_note_tags extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V3__Backfill_note_tags.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final TagConverter tagConverter = new TagConverter();
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        long lastId = 0;
+        long total = 0;
+        int read;
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, tags FROM notes WHERE id > ? ORDER BY id LIMIT ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO note_tags (note_id, tag) VALUES (?, ?)")) {
+            do {
+                read = 0;
+                select.setLong(1, lastId);
+                select.setInt(2, BATCH_SIZE);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        read++;
+                        lastId = rows.getLong("id");
+                        List<String> tags = TagConverter.normalizeTags(
+                                tagConverter.convertToEntityAttribute(rows.getString("tags")));
+                        for (String tag : tags) {
+                            insert.setLong(1, lastId);
+                            insert.setString(2, tag);
+                            insert.addBatch();
+                        }
+                    }
+                }
+                total += insert.executeBatch().length;
+            } while (read == BATCH_SIZE);
+        }
+
+        logger.info("Backfilled {} note tags", total);
+    }
+}
@@ -0,0 +1,27 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class V4__Create_notes_sequence extends BaseJavaMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        try (Statement statement = context.getConnection().createStatement()) {
+            // Hibernate's pooled optimizer treats each sequence value as the top of a block of
+            // ALLOCATION_SIZE ids, so the first value must leave a whole block above MAX(id).
+            long start;
+            try (ResultSet rows = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + " + ALLOCATION_SIZE + " FROM notes")) {
+                rows.next();
+                start = rows.getLong(1);
+            }
+            statement.execute("CREATE SEQUENCE notes_seq START WITH " + start + " INCREMENT BY " + ALLOCATION_SIZE);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package db.migration;
+
+import com.albymens.note_app.model.converter.CompressedTextConverter;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class V7__Move_note_content_to_note_bodies extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V7__Move_note_content_to_note_bodies.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        long lastId = 0;
+        long total = 0;
+        long compressed = 0;
+        int read;
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, content FROM notes WHERE id > ? ORDER BY id LIMIT ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO note_bodies (note_id, content) VALUES (?, ?)")) {
+            do {
+                read = 0;
+                select.setLong(1, lastId);
+                select.setInt(2, BATCH_SIZE);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        read++;
+                        lastId = rows.getLong("id");
+                        String content = rows.getString("content");
+                        if (content == null) {
+                            continue;
+                        }
+                        byte[] body = converter.convertToDatabaseColumn(content);
+                        if (CompressedTextConverter.isCompressed(body)) {
+                            compressed++;
+                        }
+                        insert.setLong(1, lastId);
+                        insert.setBytes(2, body);
+                        insert.addBatch();
+                    }
+                }
+                total += insert.executeBatch().length;
+            } while (read == BATCH_SIZE);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE notes DROP COLUMN content");
+        }
+
+        logger.info("Moved {} note bodies, {} of them compressed", total, compressed);
+    }
+}
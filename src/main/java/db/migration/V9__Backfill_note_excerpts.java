@@ -0,0 +1,54 @@
+package db.migration;
+
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.model.converter.CompressedTextConverter;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class V9__Backfill_note_excerpts extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V9__Backfill_note_excerpts.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        long lastId = 0;
+        long total = 0;
+        int read;
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT note_id, content FROM note_bodies WHERE note_id > ? ORDER BY note_id LIMIT ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE notes SET excerpt = ?, content_length = ? WHERE id = ?")) {
+            do {
+                read = 0;
+                select.setLong(1, lastId);
+                select.setInt(2, BATCH_SIZE);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        read++;
+                        lastId = rows.getLong("note_id");
+                        String content = converter.convertToEntityAttribute(rows.getBytes("content"));
+                        update.setString(1, Note.excerptOf(content));
+                        update.setInt(2, content.length());
+                        update.setLong(3, lastId);
+                        update.addBatch();
+                    }
+                }
+                total += update.executeBatch().length;
+            } while (read == BATCH_SIZE);
+        }
+
+        logger.info("Backfilled excerpts for {} notes", total);
+    }
+}
@@ -0,0 +1,2 @@
+CREATE INDEX idx_notes_user_deleted_created ON notes(user_id, deleted_at, created_at, id);
+CREATE INDEX idx_notes_user_deleted_updated ON notes(user_id, deleted_at, updated_at, id);
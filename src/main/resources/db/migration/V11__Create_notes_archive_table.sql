@@ -0,0 +1,16 @@
+CREATE TABLE notes_archive (
+    id BIGINT PRIMARY KEY,
+    title VARCHAR(500) NOT NULL,
+    tags JSON,
+    user_id BIGINT NOT NULL,
+    version INTEGER NOT NULL,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    deleted_at TIMESTAMP NOT NULL,
+    excerpt VARCHAR(255),
+    content_length INTEGER DEFAULT 0 NOT NULL,
+    content BLOB,
+    archived_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_notes_archive_user_id ON notes_archive(user_id);
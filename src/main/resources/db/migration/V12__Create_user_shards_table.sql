@@ -0,0 +1,4 @@
+CREATE TABLE user_shards (
+    user_id BIGINT PRIMARY KEY,
+    shard INTEGER NOT NULL
+);
@@ -0,0 +1,8 @@
+CREATE TABLE note_tags (
+    note_id BIGINT NOT NULL,
+    tag VARCHAR(255) NOT NULL,
+    PRIMARY KEY (note_id, tag),
+    FOREIGN KEY (note_id) REFERENCES notes(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_note_tags_tag ON note_tags(tag, note_id);
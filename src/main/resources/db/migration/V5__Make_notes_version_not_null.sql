@@ -0,0 +1,4 @@
+UPDATE notes SET version = 0 WHERE version IS NULL;
+
+ALTER TABLE notes ALTER COLUMN version SET DEFAULT 0;
+ALTER TABLE notes ALTER COLUMN version SET NOT NULL;
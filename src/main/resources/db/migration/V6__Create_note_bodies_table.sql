@@ -0,0 +1,5 @@
+CREATE TABLE note_bodies (
+    note_id BIGINT PRIMARY KEY,
+    content BLOB NOT NULL,
+    FOREIGN KEY (note_id) REFERENCES notes(id) ON DELETE CASCADE
+);
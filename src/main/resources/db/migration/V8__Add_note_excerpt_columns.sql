@@ -0,0 +1,2 @@
+ALTER TABLE notes ADD COLUMN excerpt VARCHAR(255);
+ALTER TABLE notes ADD COLUMN content_length INTEGER DEFAULT 0 NOT NULL;
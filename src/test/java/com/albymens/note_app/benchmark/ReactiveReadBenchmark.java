@@ -0,0 +1,173 @@
+package com.albymens.note_app.benchmark;
+
+import com.albymens.note_app.NoteAppApplication;
+import com.albymens.note_app.reactive.ReactiveReadServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares read throughput of the servlet endpoints with the reactive read server
+ * ({@code notes.reactive.enabled}) for a search, a note lookup and the list of active notes.
+ * Both paths run in the same application against the same in-memory database seeded with one
+ * user and a few thousand notes, and the {@code api} parameter only picks the port the client
+ * threads send to, so the difference is down to Tomcat request threads and JDBC versus Netty
+ * event loops and R2DBC. Runs with more client threads than Tomcat's default pool of 200.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.albymens.note_app.benchmark.ReactiveReadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(400)
+@Fork(1)
+public class ReactiveReadBenchmark {
+
+    private static final String USERNAME = "bench";
+    private static final String PASSWORD = "bench-password";
+    private static final int SEEDED_NOTES = 5_000;
+    private static final int SEED_BATCH = 500;
+
+    @Param({"mvc", "reactive"})
+    public String api;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String servletUrl;
+    private String baseUrl;
+    private String token;
+    private long[] noteIds;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        // Passed as arguments because default properties lose to application.properties.
+        context = new SpringApplicationBuilder(NoteAppApplication.class)
+                .run(arguments(Map.of(
+                        "server.port", "0",
+                        "notes.reactive.enabled", "true",
+                        "notes.reactive.port", "0",
+                        "spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "security.jwt.secret.key", "f8e644584a41f5351e8518676920e0d4",
+                        "security.jwt.token.expire-length", String.valueOf(TimeUnit.HOURS.toMillis(1)),
+                        "notes.retention.enabled", "false",
+                        "spring.h2.console.enabled", "false",
+                        "logging.level.root", "WARN")));
+        servletUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        int reactivePort = context.getBean(ReactiveReadServer.class).getPort();
+        baseUrl = api.equals("reactive") ? "http://localhost:" + reactivePort : servletUrl;
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        post("/api/auth/signup", Map.of("username", USERNAME, "email", "bench@example.com", "password", PASSWORD), null);
+        token = objectMapper.readTree(post("/api/auth/login",
+                Map.of("usernameOrEmail", USERNAME, "password", PASSWORD), null)).get("token").asText();
+
+        List<Long> ids = new ArrayList<>(SEEDED_NOTES);
+        for (int seeded = 0; seeded < SEEDED_NOTES; seeded += SEED_BATCH) {
+            List<Map<String, Object>> notes = new ArrayList<>(SEED_BATCH);
+            for (int i = seeded; i < seeded + SEED_BATCH; i++) {
+                notes.add(Map.of("title", "Note " + i,
+                        "content", "Benchmark note " + i + (i % 10 == 0 ? " about reactive reads" : ""),
+                        "tags", List.of("bench", "tag" + i % 20)));
+            }
+            JsonNode results = objectMapper.readTree(post("/api/notes/batch", notes, token)).get("data");
+            results.forEach(result -> ids.add(result.get("id").asLong()));
+        }
+        noteIds = ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public String search() throws Exception {
+        return get("/api/notes/search?searchTerm=reactive&tags=tag0&size=20");
+    }
+
+    @Benchmark
+    public String getNote() throws Exception {
+        return get("/api/notes/" + noteIds[ThreadLocalRandom.current().nextInt(noteIds.length)]);
+    }
+
+    @Benchmark
+    public String list() throws Exception {
+        return get("/api/notes");
+    }
+
+    private String get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET());
+    }
+
+    private String post(String path, Object body, String bearer) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(servletUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        if (bearer != null) {
+            request.header("Authorization", "Bearer " + bearer);
+        }
+        return send(request);
+    }
+
+    private String send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.build().uri() + " returned " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static String[] arguments(Map<String, String> properties) {
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReactiveReadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,192 @@
+package com.albymens.note_app.benchmark;
+
+import com.albymens.note_app.NoteAppApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares request throughput of the application running Tomcat and its executors on
+ * platform threads with the same application on virtual threads
+ * ({@code spring.threads.virtual.enabled}), for a search, a login and a note creation.
+ * Each mode boots the application in its own fork on a random port against a fresh
+ * in-memory database seeded with one user and a few thousand notes, then drives it over
+ * HTTP from more client threads than Tomcat's default pool of 200 request threads. BCrypt
+ * keeps its bounded platform pool in both modes, so login mostly shows how request threads
+ * wait for it. With virtual threads the pinning sites seen during the run are printed at the end.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.albymens.note_app.benchmark.ThreadingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(400)
+@Fork(1)
+public class ThreadingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingBenchmark.class);
+    private static final String USERNAME = "bench";
+    private static final String PASSWORD = "bench-password";
+    private static final int SEEDED_NOTES = 5_000;
+    private static final int SEED_BATCH = 500;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong created = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String token;
+    private String loginBody;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        // Passed as arguments because default properties lose to application.properties.
+        context = new SpringApplicationBuilder(NoteAppApplication.class)
+                .run(arguments(Map.of(
+                        "server.port", "0",
+                        "spring.threads.virtual.enabled", String.valueOf(threads.equals("virtual")),
+                        "spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "security.jwt.secret.key", "f8e644584a41f5351e8518676920e0d4",
+                        "security.jwt.token.expire-length", String.valueOf(TimeUnit.HOURS.toMillis(1)),
+                        "security.password.hashing.queue-capacity", "1000",
+                        "security.password.hashing.timeout", "30s",
+                        "notes.retention.enabled", "false",
+                        "spring.h2.console.enabled", "false",
+                        "logging.level.root", "WARN")));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        post("/api/auth/signup", Map.of("username", USERNAME, "email", "bench@example.com", "password", PASSWORD), null);
+        loginBody = objectMapper.writeValueAsString(Map.of("usernameOrEmail", USERNAME, "password", PASSWORD));
+        token = objectMapper.readTree(send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(loginBody)))).get("token").asText();
+
+        for (int seeded = 0; seeded < SEEDED_NOTES; seeded += SEED_BATCH) {
+            List<Map<String, Object>> notes = new ArrayList<>(SEED_BATCH);
+            for (int i = seeded; i < seeded + SEED_BATCH; i++) {
+                notes.add(Map.of("title", "Note " + i,
+                        "content", "Benchmark note " + i + (i % 10 == 0 ? " about threads" : ""),
+                        "tags", List.of("bench", "tag" + i % 20)));
+            }
+            post("/api/notes/batch", notes, token);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws Exception {
+        try {
+            if (threads.equals("virtual")) {
+                JsonNode pinning = objectMapper.readTree(send(HttpRequest.newBuilder(uri("/actuator/pinning"))
+                        .header("Authorization", "Bearer " + token)
+                        .GET()));
+                if (pinning.path("sites").isEmpty()) {
+                    logger.info("No virtual thread pinning above {}", pinning.path("threshold").asText());
+                } else {
+                    logger.warn("Pinned virtual threads: {}", pinning.toPrettyString());
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public String search() throws Exception {
+        return send(HttpRequest.newBuilder(uri("/api/notes/search?searchTerm=threads&size=20"))
+                .header("Authorization", "Bearer " + token)
+                .GET());
+    }
+
+    @Benchmark
+    public String login() throws Exception {
+        return send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(loginBody)));
+    }
+
+    @Benchmark
+    public String create() throws Exception {
+        return post("/api/notes", Map.of("title", "Created " + created.incrementAndGet(),
+                "content", "Created during the benchmark", "tags", List.of("bench")), token);
+    }
+
+    private String post(String path, Object body, String bearer) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        if (bearer != null) {
+            request.header("Authorization", "Bearer " + bearer);
+        }
+        return send(request);
+    }
+
+    private String send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.build().uri() + " returned " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static String[] arguments(Map<String, String> properties) {
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ThreadingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.albymens.note_app.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rwprimary;DB_CLOSE_DELAY=-1",
+        "notes.datasource.replica.url=jdbc:h2:mem:rwreplica;DB_CLOSE_DELAY=-1",
+        "notes.datasource.replica.username=sa",
+        "notes.datasource.replica.driver-class-name=org.h2.Driver",
+        "notes.datasource.replica.lag-window=1m"
+})
+public class ReadWriteRoutingIntegrationTest {
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown(){
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replica and writes to the primary")
+    void shouldRouteByReadOnlyFlag() {
+        assertThat(connectionUrl(true)).contains("rwreplica");
+        assertThat(connectionUrl(false)).contains("rwprimary");
+    }
+
+    @Test
+    @DisplayName("Should keep a user on the primary within the lag window after their own write")
+    void shouldReadOwnWritesFromPrimary() {
+        authenticate("writer");
+        assertThat(connectionUrl(false)).contains("rwprimary");
+        assertThat(connectionUrl(true)).contains("rwprimary");
+
+        authenticate("reader");
+        assertThat(connectionUrl(true)).contains("rwreplica");
+    }
+
+    private String connectionUrl(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                return connection.getMetaData().getURL();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        });
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+}
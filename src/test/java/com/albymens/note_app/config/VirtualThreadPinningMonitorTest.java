@@ -0,0 +1,68 @@
+package com.albymens.note_app.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+
+    @Test
+    @DisplayName("Should create virtual threads only when virtual threads are enabled")
+    void shouldFollowVirtualThreadsSetting() throws InterruptedException {
+        ThreadFactories platform = new ThreadFactories(new MockEnvironment());
+        ThreadFactories virtual = new ThreadFactories(new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", "true"));
+
+        assertFalse(platform.isVirtual());
+        assertFalse(platform.blocking("test-").newThread(() -> { }).isVirtual());
+        assertTrue(virtual.isVirtual());
+        Thread thread = virtual.blocking("test-").newThread(() -> { });
+        assertTrue(thread.isVirtual());
+        assertEquals("test-1", thread.getName());
+    }
+
+    @Test
+    @DisplayName("Should report the application frame where a virtual thread blocked inside synchronized")
+    void shouldReportPinnedVirtualThreads() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(5));
+        try {
+            List<Map<String, Object>> sites = List.of();
+            long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+            while (sites.isEmpty() && System.nanoTime() < deadline) {
+                Thread.ofVirtual().start(this::sleepWhileHoldingLock).join();
+                Thread.sleep(500);
+                sites = monitor.sites();
+            }
+
+            assertEquals(1, sites.size());
+            String site = (String) sites.get(0).get("site");
+            assertTrue(site.startsWith(VirtualThreadPinningMonitorTest.class.getName() + ".sleepWhileHoldingLock"), site);
+            assertTrue((Long) sites.get(0).get("count") >= 1);
+            assertTrue(meterRegistry.get("notes.threads.pinned").tag("site", site).timer().count() >= 1);
+        } finally {
+            monitor.destroy();
+        }
+    }
+
+    private void sleepWhileHoldingLock() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.albymens.note_app.controller;
 
 import com.albymens.note_app.config.JwtAuthenticationFilter;
-import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
 import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.specification.TagMatch;
 import com.albymens.note_app.service.JwtService;
+import com.albymens.note_app.events.NoteEventBus;
+import com.albymens.note_app.service.NoteExportService;
+import com.albymens.note_app.service.NoteImportService;
 import com.albymens.note_app.service.NoteService;
 import com.albymens.note_app.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
@@ -24,6 +29,9 @@ import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -46,18 +54,24 @@ class NoteTestController {
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     @MockBean
     private UserService userService;
+    @MockBean
+    private NoteExportService noteExportService;
+    @MockBean
+    private NoteImportService noteImportService;
+    @MockBean
+    private NoteEventBus noteEventBus;
 
-    private NoteDto note1;
-    private NoteDto note2;
+    private NoteSummary note1;
+    private NoteSummary note2;
     private User testuser;
 
     @BeforeEach
     void setUp() {
-        note1 = new NoteDto(1L, "Spring Boot Framework", "Complete guide to Spring Boot Framework",
-                List.of("Dependency Injection", "Starter Guide", "Annotations"), "Alby", Instant.now(), Instant.now());
+        note1 = new NoteSummary(1L, "Spring Boot Framework", List.of("Dependency Injection", "Starter Guide", "Annotations"),
+                "Complete guide to Spring Boot Framework", 39, Instant.now(), Instant.now(), 0);
 
-        note2 = new NoteDto(2L, "Spring Security Basics", "Understanding Spring Security configuration",
-                List.of("Spring Security", "Jwt"), "Alby", Instant.now(), Instant.now());
+        note2 = new NoteSummary(2L, "Spring Security Basics", List.of("Spring Security", "Jwt"),
+                "Understanding Spring Security configuration", 43, Instant.now(), Instant.now(), 0);
         testuser = new User();
         testuser.setUsername("Alby");
         testuser.setEmail("alby@gmail.com");
@@ -68,9 +82,9 @@ class NoteTestController {
     @DisplayName("Should return paginated notes for search term")
     @WithMockUser(username = "Alby")
     void shouldReturnNotesForSearchTerm() throws Exception {
-        List<NoteDto> notes = List.of(note1, note2);
+        List<NoteSummary> notes = List.of(note1, note2);
         given(userService.findByUsernameOrEmail("Alby")).willReturn(testuser);
-        given(noteService.searchNotes(eq(testuser), any(), eq("Spring"), any()))
+        given(noteService.searchNotes(eq(testuser), any(), eq(TagMatch.ANY), eq("Spring"), any()))
                 .willReturn(new org.springframework.data.domain.PageImpl<>(notes));
 
         mockMvc.perform(get("/api/notes/search")
@@ -83,4 +97,28 @@ class NoteTestController {
                 .andExpect(jsonPath("$.data.content.length()").value(2))
                 .andExpect(jsonPath("$.data.content[0].title").value("Spring Boot Framework"));
     }
+
+    @Test
+    @DisplayName("Should revalidate search pages from one query and skip validators for pages with pending autosaves")
+    @WithMockUser(username = "Alby")
+    void shouldRevalidateSearchPages() throws Exception {
+        given(userService.findByUsernameOrEmail("Alby")).willReturn(testuser);
+        given(noteService.searchNotes(eq(testuser), any(), eq(TagMatch.ANY), eq("Spring"), any()))
+                .willReturn(new org.springframework.data.domain.PageImpl<>(List.of(note1, note2)));
+
+        String eTag = mockMvc.perform(get("/api/notes/search").param("searchTerm", "Spring"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/notes/search").param("searchTerm", "Spring")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        verify(noteService, times(2)).searchNotes(eq(testuser), any(), eq(TagMatch.ANY), eq("Spring"), any());
+
+        given(noteService.hasPendingAutosave(2L, testuser)).willReturn(true);
+        mockMvc.perform(get("/api/notes/search").param("searchTerm", "Spring")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
 }
@@ -0,0 +1,97 @@
+package com.albymens.note_app.events;
+
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.NoteRepository;
+import com.albymens.note_app.repository.UserRepository;
+import com.albymens.note_app.service.NoteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class NoteEventBusIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private NoteService noteService;
+    @Autowired
+    private NoteEventBus noteEventBus;
+    @Autowired
+    private NoteRepository noteRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private User testuser;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+
+        testuser = new User();
+        testuser.setUsername("Ama");
+        testuser.setPassword("uytw4321");
+        testuser.setEmail("ama@gmail.com");
+        userRepository.save(testuser);
+    }
+
+    @Test
+    @DisplayName("Should push committed note changes to the user's open event streams")
+    void shouldPushNoteChangesToOpenStreams() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/notes/events")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .with(user(testuser.getUsername())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = stream.getResponse();
+        awaitContent(response, "event:ready");
+        assertThat(noteEventBus.subscriberCount()).isEqualTo(1);
+
+        Note request = new Note();
+        request.setTitle("Live Updates");
+        request.setContent("Pushed over server-sent events");
+        request.setTags(List.of("sse"));
+        Long id = noteService.createNote(request, testuser.getUsername()).getId();
+        awaitContent(response, "\"title\":\"Live Updates\"");
+
+        noteService.deleteNote(id, testuser.getUsername());
+        awaitContent(response, "event:deleted");
+
+        Note tagged = new Note();
+        tagged.setTitle("Tagged Note");
+        tagged.setTags(List.of("sse"));
+        noteService.restoreNote(id, testuser.getUsername());
+        noteService.createNote(tagged, testuser.getUsername());
+        noteService.deleteNotesByTags(List.of("sse"), testuser.getUsername());
+        awaitContent(response, "event:resync");
+
+        assertThat(response.getContentAsString())
+                .contains("event:created", "event:restored");
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        for (int i = 0; i < 50 && !response.getContentAsString().contains(expected); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(response.getContentAsString()).contains(expected);
+    }
+}
@@ -0,0 +1,115 @@
+package com.albymens.note_app.events;
+
+import com.albymens.note_app.config.ThreadFactories;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteEventBusTest {
+
+    @Test
+    @DisplayName("Should close a stream whose send blocks and keep delivering to other streams")
+    void shouldCloseStalledStreams() throws Exception {
+        NoteEventBus bus = new NoteEventBus(new SimpleMeterRegistry(), new ThreadFactories(new MockEnvironment()),
+                1, 64, 10, 20, Duration.ofMinutes(1), Duration.ofMinutes(30), Duration.ofMillis(200), 8);
+        try {
+            BlockingEmitter stalled = new BlockingEmitter();
+            bus.subscribe(1L, stalled);
+            assertTrue(stalled.sending.await(5, TimeUnit.SECONDS));
+
+            RecordingEmitter other = new RecordingEmitter();
+            bus.subscribe(2L, other);
+            bus.publish(2L, NoteEvent.resync());
+
+            for (int i = 0; i < 50 && other.sent.stream().noneMatch(event -> event.contains("event:resync")); i++) {
+                Thread.sleep(100);
+            }
+            assertTrue(other.sent.stream().anyMatch(event -> event.contains("event:resync")), other.sent.toString());
+            assertEquals(1, bus.subscriberCount());
+            assertFalse(stalled.completed.await(0, TimeUnit.SECONDS));
+
+            stalled.release.countDown();
+            assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        } finally {
+            bus.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should close stalled streams without adding dispatch threads past the limit")
+    void shouldLimitExtraDispatchThreads() throws Exception {
+        NoteEventBus bus = new NoteEventBus(new SimpleMeterRegistry(), new ThreadFactories(new MockEnvironment()),
+                1, 64, 10, 20, Duration.ofMinutes(1), Duration.ofMinutes(30), Duration.ofMillis(200), 0);
+        try {
+            BlockingEmitter stalled = new BlockingEmitter();
+            bus.subscribe(1L, stalled);
+            assertTrue(stalled.sending.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 50 && bus.subscriberCount() > 0; i++) {
+                Thread.sleep(100);
+            }
+            assertEquals(0, bus.subscriberCount());
+
+            RecordingEmitter other = new RecordingEmitter();
+            bus.subscribe(2L, other);
+            bus.publish(2L, NoteEvent.resync());
+            Thread.sleep(500);
+            assertTrue(other.sent.isEmpty(), other.sent.toString());
+
+            stalled.release.countDown();
+            assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 50 && other.sent.stream().noneMatch(event -> event.contains("event:resync")); i++) {
+                Thread.sleep(100);
+            }
+            assertTrue(other.sent.stream().anyMatch(event -> event.contains("event:resync")), other.sent.toString());
+        } finally {
+            bus.destroy();
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            sent.add(event.toString());
+        }
+    }
+
+    /**
+     * Stands in for a client that stopped reading: its first send blocks until released.
+     */
+    private static class BlockingEmitter extends SseEmitter {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.albymens.note_app.reactive;
+
+import com.albymens.note_app.dto.CursorPageResponse;
+import com.albymens.note_app.dto.NoteCursor;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.dto.PageResponse;
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.NoteRepository;
+import com.albymens.note_app.repository.UserRepository;
+import com.albymens.note_app.repository.specification.TagMatch;
+import com.albymens.note_app.service.JwtService;
+import com.albymens.note_app.service.NoteService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"notes.reactive.enabled=true", "notes.reactive.port=0", "security.jwt.token.expire-length=600000"})
+@ActiveProfiles("test")
+class ReactiveNoteReadIntegrationTest {
+
+    @Autowired
+    private ReactiveReadServer reactiveReadServer;
+    @Autowired
+    private NoteService noteService;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private NoteRepository noteRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private WebTestClient client;
+    private User testuser;
+    private User otheruser;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+
+        testuser = saveUser("Ama", "ama@gmail.com");
+        otheruser = saveUser("Kofi", "kofi@gmail.com");
+        token = jwtService.generateToken(testuser.getUsername(), testuser.getId());
+        client = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + reactiveReadServer.getPort())
+                .build();
+
+        createNote(testuser, "Spring Reactive", "Non-blocking reads with WebFlux", List.of("java", "spring"));
+        createNote(testuser, "Spring MVC", "Servlet based controllers", List.of("java"));
+        createNote(testuser, "Groceries", "Milk, bread and eggs", List.of("home"));
+        createNote(testuser, "Reading List", "Reactive streams in practice", List.of("books", "java"));
+        createNote(otheruser, "Kofi's Java Note", "Not visible to Ama", List.of("java"));
+    }
+
+    @Test
+    @DisplayName("Should return the same search pages as the servlet search")
+    void shouldMatchServletSearch() throws Exception {
+        assertSearchMatches(List.of(), TagMatch.ANY, null, "createdAt", Sort.Direction.DESC, 0, 10);
+        assertSearchMatches(List.of("java", "spring"), TagMatch.ANY, null, "title", Sort.Direction.ASC, 0, 10);
+        assertSearchMatches(List.of("java", "spring"), TagMatch.ALL, null, "id", Sort.Direction.ASC, 0, 10);
+        assertSearchMatches(List.of(), TagMatch.ANY, "reactive", "updatedAt", Sort.Direction.DESC, 0, 10);
+        assertSearchMatches(List.of("java"), TagMatch.ANY, "reactive", "title", Sort.Direction.DESC, 0, 10);
+        assertSearchMatches(List.of(), TagMatch.ANY, null, "title", Sort.Direction.ASC, 1, 2);
+        assertSearchMatches(List.of(), TagMatch.ANY, "nothing-matches-this", "createdAt", Sort.Direction.DESC, 0, 10);
+    }
+
+    @Test
+    @DisplayName("Should page through search results with cursors like the servlet search")
+    void shouldMatchServletCursorSearch() throws Exception {
+        NoteCursor first = NoteCursor.first("createdAt", Sort.Direction.ASC);
+        JsonNode expected = json(
+                noteService.searchNotes(testuser, List.of(), TagMatch.ANY, null, first, 3));
+
+        JsonNode page = data(getJson("/api/notes/search?cursor=&size=3&sort=createdAt,asc", token));
+        assertThat(page).isEqualTo(expected);
+        assertThat(page.get("nextCursor").isNull()).isFalse();
+
+        String nextCursor = page.get("nextCursor").asText();
+        JsonNode expectedNext = json(noteService.searchNotes(
+                testuser, List.of(), TagMatch.ANY, null, NoteCursor.decode(nextCursor), 3));
+        JsonNode next = data(getJson("/api/notes/search?size=3&sort=createdAt,asc&cursor=" + nextCursor, token));
+        assertThat(next).isEqualTo(expectedNext);
+        assertThat(next.get("content")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should return the same note ids as the servlet search for every filter, sort and page")
+    void shouldMatchServletFilters() throws Exception {
+        Long deletedId = createNote(testuser, "Deleted Reactive Spring", "Reactive and gone", List.of("java", "spring", "home"));
+        noteService.deleteNote(deletedId, testuser.getUsername());
+
+        List<List<String>> tagSets = List.of(List.of(), List.of("java"), List.of("java", "spring"), List.of("home", "books"));
+        List<String> searchTerms = Arrays.asList(null, "reactive", "spring", "nothing-matches-this");
+        for (List<String> tags : tagSets) {
+            for (TagMatch tagMatch : TagMatch.values()) {
+                for (String searchTerm : searchTerms) {
+                    for (Sort.Direction direction : Sort.Direction.values()) {
+                        for (String sortBy : List.of("id", "title", "createdAt", "updatedAt")) {
+                            for (int page = 0; page < 3; page++) {
+                                Page<NoteSummary> expected = noteService.searchNotes(testuser, tags, tagMatch, searchTerm,
+                                        PageRequest.of(page, 2, Sort.by(direction, sortBy)));
+                                String uri = searchUri(tags, tagMatch, searchTerm)
+                                        + "&page=" + page + "&size=2&sort=" + sortBy + "," + direction.name().toLowerCase();
+                                assertThat(ids(data(getJson(uri, token)))).as(uri).isEqualTo(ids(expected.getContent()))
+                                        .doesNotContain(deletedId);
+                            }
+                        }
+                        for (String sortBy : List.of("createdAt", "updatedAt")) {
+                            assertCursorPagesMatch(tags, tagMatch, searchTerm, sortBy, direction, deletedId);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should return only the caller's own notes by id and honour their ETags")
+    void shouldReturnOwnNotesById() throws Exception {
+        Long id = noteRepository.findAll().stream()
+                .filter(note -> note.getTitle().equals("Spring Reactive"))
+                .findFirst().orElseThrow().getId();
+        Long otherId = noteRepository.findAll().stream()
+                .filter(note -> note.getUser().getId().equals(otheruser.getId()))
+                .findFirst().orElseThrow().getId();
+
+        WebTestClient.ResponseSpec response = client.get().uri("/api/notes/" + id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk();
+        byte[] body = response.expectBody().returnResult().getResponseBody();
+        assertThat(data(objectMapper.readTree(body)))
+                .isEqualTo(json(noteService.getNoteById(id, testuser)));
+
+        String eTag = client.get().uri("/api/notes/" + id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertThat(eTag).isNotNull();
+        client.get().uri("/api/notes/" + id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        client.get().uri("/api/notes/" + otherId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.success").isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Should list the caller's active notes like the servlet list endpoint")
+    void shouldMatchServletList() throws Exception {
+        JsonNode expected = json(noteService.findAllActiveNotes(testuser));
+
+        assertThat(data(getJson("/api/notes", token))).isEqualTo(expected);
+        assertThat(expected).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("Should answer many concurrent reads")
+    void shouldAnswerConcurrentReads() {
+        Long id = noteRepository.findAll().get(0).getId();
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://localhost:" + reactiveReadServer.getPort())
+                .build();
+
+        List<Integer> statuses = Flux.range(0, 600)
+                .flatMap(i -> webClient.get().uri(i % 3 == 0 ? "/api/notes/" + id
+                                : i % 3 == 1 ? "/api/notes/search?tags=java" : "/api/notes")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .exchangeToMono(response -> response.releaseBody()
+                                .thenReturn(response.statusCode().value())), 64)
+                .collectList()
+                .block(Duration.ofSeconds(60));
+
+        assertThat(statuses).hasSize(600).containsOnly(200);
+    }
+
+    @Test
+    @DisplayName("Should reject requests without a valid token and invalid parameters")
+    void shouldRejectUnauthenticatedAndInvalidRequests() {
+        client.get().uri("/api/notes")
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.success").isEqualTo(false);
+        client.get().uri("/api/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token")
+                .exchange()
+                .expectStatus().isUnauthorized();
+        client.get().uri("/api/notes/search?sort=secret,asc")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST);
+        client.get().uri("/api/notes/search?cursor=&size=0")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private void assertSearchMatches(List<String> tags, TagMatch tagMatch, String searchTerm, String sortBy,
+                                     Sort.Direction direction, int page, int size) throws Exception {
+        JsonNode expected = json(new PageResponse<>(noteService.searchNotes(
+                testuser, tags, tagMatch, searchTerm, PageRequest.of(page, size, Sort.by(direction, sortBy)))));
+
+        StringBuilder uri = new StringBuilder("/api/notes/search?page=").append(page)
+                .append("&size=").append(size)
+                .append("&sort=").append(sortBy).append(",").append(direction.name().toLowerCase())
+                .append("&tagMatch=").append(tagMatch.name().toLowerCase());
+        tags.forEach(tag -> uri.append("&tags=").append(tag));
+        if (searchTerm != null) {
+            uri.append("&searchTerm=").append(searchTerm);
+        }
+
+        assertThat(data(getJson(uri.toString(), token))).as(uri.toString()).isEqualTo(expected);
+    }
+
+    private void assertCursorPagesMatch(List<String> tags, TagMatch tagMatch, String searchTerm, String sortBy,
+                                        Sort.Direction direction, Long deletedId) throws Exception {
+        List<Long> expected = new ArrayList<>();
+        NoteCursor cursor = NoteCursor.first(sortBy, direction);
+        while (cursor != null) {
+            CursorPageResponse<NoteSummary> page = noteService.searchNotes(testuser, tags, tagMatch, searchTerm, cursor, 2);
+            expected.addAll(ids(page.getContent()));
+            cursor = page.getNextCursor() == null ? null : NoteCursor.decode(page.getNextCursor());
+        }
+
+        List<Long> actual = new ArrayList<>();
+        String base = searchUri(tags, tagMatch, searchTerm) + "&size=2&sort=" + sortBy + "," + direction.name().toLowerCase();
+        String nextCursor = "";
+        while (nextCursor != null) {
+            JsonNode page = data(getJson(base + "&cursor=" + nextCursor, token));
+            actual.addAll(ids(page));
+            nextCursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        }
+
+        assertThat(actual).as(base).isEqualTo(expected).doesNotContain(deletedId);
+    }
+
+    private static String searchUri(List<String> tags, TagMatch tagMatch, String searchTerm) {
+        StringBuilder uri = new StringBuilder("/api/notes/search?tagMatch=").append(tagMatch.name().toLowerCase());
+        tags.forEach(tag -> uri.append("&tags=").append(tag));
+        if (searchTerm != null) {
+            uri.append("&searchTerm=").append(searchTerm);
+        }
+        return uri.toString();
+    }
+
+    private static List<Long> ids(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.get("content").forEach(note -> ids.add(note.get("id").asLong()));
+        return ids;
+    }
+
+    private static List<Long> ids(List<NoteSummary> notes) {
+        return notes.stream().map(NoteSummary::getId).toList();
+    }
+
+    private JsonNode getJson(String uri, String bearer) throws Exception {
+        byte[] body = client.get().uri(uri)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + bearer)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+        return objectMapper.readTree(body);
+    }
+
+    // Parsed from text like the responses, so numbers compare by value rather than by Java type.
+    private JsonNode json(Object value) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsString(value));
+    }
+
+    private static JsonNode data(JsonNode result) {
+        assertThat(result.get("success").asBoolean()).isTrue();
+        return result.get("data");
+    }
+
+    private User saveUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("uytw4321");
+        user.setEmail(email);
+        return userRepository.save(user);
+    }
+
+    private Long createNote(User user, String title, String content, List<String> tags) {
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent(content);
+        note.setTags(tags);
+        return noteService.createNote(note, user.getUsername()).getId();
+    }
+}
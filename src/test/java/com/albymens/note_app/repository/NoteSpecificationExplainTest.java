@@ -0,0 +1,188 @@
+package com.albymens.note_app.repository;
+
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.specification.NoteSpecification;
+import com.albymens.note_app.repository.specification.TagMatch;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every search specification combination against the schema built by the Flyway
+ * migrations and fails when H2's EXPLAIN plan for any statement falls back to a table scan.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:explaindb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class NoteSpecificationExplainTest {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private NoteRepository noteRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @TestConfiguration
+    static class StatementCaptureConfiguration {
+        @Bean
+        HibernatePropertiesCustomizer statementCapture() {
+            StatementInspector inspector = sql -> {
+                statements.add(sql);
+                return sql;
+            };
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            User owner = new User();
+            owner.setUsername("explain" + i);
+            owner.setPassword("uytw4321");
+            owner.setEmail("explain" + i + "@gmail.com");
+            users.add(userRepository.save(owner));
+        }
+        user = users.get(0);
+
+        List<Object[]> notes = new ArrayList<>();
+        Instant now = Instant.now();
+        for (int i = 0; i < 2000; i++) {
+            Timestamp timestamp = Timestamp.from(now.minusSeconds(i));
+            notes.add(new Object[]{"Note " + i, users.get(i % users.size()).getId(), timestamp, timestamp,
+                    i % 10 == 0 ? timestamp : null});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO notes (title, user_id, created_at, updated_at, deleted_at) " +
+                "VALUES (?, ?, ?, ?, ?)", notes);
+        jdbcTemplate.update("INSERT INTO note_tags (note_id, tag) SELECT id, 'tag' || MOD(id, 20) FROM notes");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        statements.clear();
+    }
+
+    Stream<Arguments> specifications() {
+        List<Arguments> arguments = new ArrayList<>();
+        List<Function<User, Specification<Note>>> filters = List.of(
+                owner -> null,
+                owner -> NoteSpecification.hasTags(List.of("tag1", "tag2"), TagMatch.ANY),
+                owner -> NoteSpecification.hasTags(List.of("tag1", "tag2"), TagMatch.ALL),
+                owner -> NoteSpecification.hasIdIn(Set.of(1L, 2L, 3L)),
+                owner -> NoteSpecification.containSearchTerm("note"));
+        List<String> names = List.of("no filter", "any tags", "all tags", "matching ids", "title term");
+
+        for (int i = 0; i < filters.size(); i++) {
+            for (String sortBy : List.of("createdAt", "updatedAt")) {
+                for (Sort.Direction direction : Sort.Direction.values()) {
+                    for (boolean seek : List.of(false, true)) {
+                        arguments.add(Arguments.of(names.get(i), filters.get(i), sortBy, direction, seek));
+                    }
+                }
+            }
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest(name = "{0}, {2} {3}, seek={4}")
+    @MethodSource("specifications")
+    @DisplayName("Search statements should never scan the notes table")
+    void shouldUseIndexes(String name, Function<User, Specification<Note>> filter, String sortBy,
+                          Sort.Direction direction, boolean seek) throws SQLException {
+        Specification<Note> spec = NoteSpecification.isNotDeleted().and(NoteSpecification.belongsToUser(user));
+        Specification<Note> extra = filter.apply(user);
+        if (extra != null) {
+            spec = spec.and(extra);
+        }
+        if (seek) {
+            spec = spec.and(NoteSpecification.seekAfter(sortBy, direction, Instant.now().minusSeconds(500), 500L));
+        }
+
+        Sort sort = Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+        noteRepository.findSummaries(spec, PageRequest.of(1, 10, sort));
+        noteRepository.findSummaries(spec, sort, 11);
+
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertThat(plan).as("plan for %s", sql).doesNotContainIgnoringCase("tableScan");
+            if (extra == null) {
+                assertThat(plan).as("plan for %s", sql).contains("IDX_NOTES_USER_DELETED_");
+            }
+        }
+    }
+
+    private String explain(String sql) throws SQLException {
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            ParameterMetaData parameters = statement.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                statement.setObject(i, sampleValue(parameters.getParameterType(i)));
+            }
+            try (ResultSet plan = statement.executeQuery()) {
+                StringBuilder text = new StringBuilder();
+                while (plan.next()) {
+                    text.append(plan.getString(1)).append('\n');
+                }
+                return text.toString();
+            }
+        }
+    }
+
+    private Object sampleValue(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT, Types.NUMERIC, Types.DECIMAL -> 1L;
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> Timestamp.from(Instant.now());
+            default -> "%tag1%";
+        };
+    }
+}
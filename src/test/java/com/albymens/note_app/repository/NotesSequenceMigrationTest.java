@@ -0,0 +1,75 @@
+package com.albymens.note_app.repository;
+
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.service.NoteService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database that already holds notes with ids from before the notes sequence and
+ * checks that notes created afterwards get new ids.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sequencedb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+public class NotesSequenceMigrationTest {
+
+    private static final int EXISTING_NOTES = 120;
+
+    @Autowired
+    private NoteService noteService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class SeedBeforeSequenceConfiguration {
+        @Bean
+        FlywayMigrationStrategy seedBeforeSequence() {
+            return flyway -> {
+                Flyway.configure().configuration(flyway.getConfiguration()).target("3").load().migrate();
+                JdbcTemplate jdbc = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+                jdbc.update("INSERT INTO users (id, username, email, password) VALUES (1, 'Ama', 'ama@gmail.com', 'uytw4321')");
+                for (int id = 1; id <= EXISTING_NOTES; id++) {
+                    jdbc.update("INSERT INTO notes (id, title, content, user_id) VALUES (?, ?, ?, 1)",
+                            id, "Old note " + id, "Written before the upgrade");
+                }
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand out note ids above the existing ones after the sequence migration")
+    void shouldNotReuseExistingIds() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Note note = new Note();
+            note.setTitle("New note " + i);
+            note.setContent("Written after the upgrade");
+            NoteDto created = noteService.createNote(note, "Ama");
+            ids.add(created.getId());
+        }
+
+        assertThat(ids).allMatch(id -> id > EXISTING_NOTES).doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes", Integer.class))
+                .isEqualTo(EXISTING_NOTES + 60);
+    }
+}
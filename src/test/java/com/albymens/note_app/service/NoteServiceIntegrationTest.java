@@ -1,11 +1,30 @@
 package com.albymens.note_app.service;
 
 import com.albymens.note_app.config.SpringConfiguration;
+import com.albymens.note_app.dto.BatchItemResult;
+import com.albymens.note_app.dto.ChangeFeedResponse;
+import com.albymens.note_app.dto.CursorPageResponse;
+import com.albymens.note_app.dto.NoteChange;
+import com.albymens.note_app.dto.NoteCursor;
 import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.dto.SyncToken;
+import com.albymens.note_app.exception.IllegalArgumentsException;
+import com.albymens.note_app.exception.PreconditionFailedException;
+import com.albymens.note_app.exception.ResourceNotFoundException;
+import com.albymens.note_app.exception.SyncTokenExpiredException;
 import com.albymens.note_app.model.Note;
 import com.albymens.note_app.model.User;
+import com.albymens.note_app.model.converter.CompressedTextConverter;
+import com.albymens.note_app.repository.ArchivedNoteRepository;
 import com.albymens.note_app.repository.NoteRepository;
 import com.albymens.note_app.repository.UserRepository;
+import com.albymens.note_app.repository.specification.TagMatch;
+import com.albymens.note_app.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,11 +35,36 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 
 @SpringBootTest
@@ -34,6 +78,24 @@ public class NoteServiceIntegrationTest {
     private UserRepository userRepository;
     @Autowired
     private NoteService noteService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private NoteAutosaveBuffer noteAutosaveBuffer;
+    @Autowired
+    private NoteRetentionJob noteRetentionJob;
+    @Autowired
+    private ArchivedNoteRepository archivedNoteRepository;
+    @Autowired
+    private NoteImportService noteImportService;
+    @Autowired
+    private NoteExportService noteExportService;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     private Note note1, note2, note3, deleteNote;
     private User testuser;
@@ -83,12 +145,13 @@ public class NoteServiceIntegrationTest {
         String searchTerm = "Spring";
         Pageable pageable = PageRequest.of(0, 10);
 
-        Page<NoteDto> result = noteService.searchNotes(testuser, null, searchTerm, pageable);
+        Page<NoteSummary> result = noteService.searchNotes(testuser, null, searchTerm, pageable);
 
         assertThat(result.getContent()).hasSize(2);
         assertThat(result.getContent())
-                .extracting(NoteDto::getTitle)
+                .extracting(NoteSummary::getTitle)
                 .containsExactlyInAnyOrder("Spring Boot Framework", "Spring Security Basics");
+        assertThat(noteService.searchNotes(testuser, null, "?!", pageable).getContent()).isEmpty();
     }
 
     @Test
@@ -97,12 +160,545 @@ public class NoteServiceIntegrationTest {
         List<String> tags = List.of("Advanced");
         Pageable pageable = PageRequest.of(0, 10);
 
-        Page<NoteDto> result = noteService.searchNotes(testuser, tags, null, pageable);
+        Page<NoteSummary> result = noteService.searchNotes(testuser, tags, null, pageable);
 
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent())
-                .extracting(NoteDto::getTitle)
+                .extracting(NoteSummary::getTitle)
                 .containsExactly("Database Management");
     }
 
+    @Test
+    @DisplayName("Should match tags exactly and support all-of filtering")
+    void shouldMatchTagsExactly() {
+        Pageable pageable = PageRequest.of(0, 10);
+
+        assertThat(noteService.searchNotes(testuser, List.of("guide"), null, pageable).getContent()).isEmpty();
+
+        Page<NoteSummary> anyOf = noteService.searchNotes(testuser, List.of("jwt", "advanced"), TagMatch.ANY, null, pageable);
+        assertThat(anyOf.getContent())
+                .extracting(NoteSummary::getTitle)
+                .containsExactlyInAnyOrder("Spring Security Basics", "Database Management");
+
+        Page<NoteSummary> allOf = noteService.searchNotes(testuser, List.of("Jwt", "spring security"), TagMatch.ALL, null, pageable);
+        assertThat(allOf.getContent())
+                .extracting(NoteSummary::getTitle)
+                .containsExactly("Spring Security Basics");
+    }
+
+    @Test
+    @DisplayName("Should page through notes with a keyset cursor")
+    void shouldPageThroughNotesWithCursor() {
+        NoteCursor cursor = NoteCursor.first("createdAt", Sort.Direction.DESC);
+
+        CursorPageResponse<NoteSummary> firstPage = noteService.searchNotes(testuser, null, TagMatch.ANY, null, cursor, 2);
+        assertThat(firstPage.getContent()).hasSize(2);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        CursorPageResponse<NoteSummary> secondPage = noteService.searchNotes(testuser, null, TagMatch.ANY, null,
+                NoteCursor.decode(firstPage.getNextCursor()), 2);
+        assertThat(secondPage.getContent()).hasSize(1);
+        assertThat(secondPage.isHasNext()).isFalse();
+
+        assertThat(List.of(firstPage.getContent().get(0), firstPage.getContent().get(1), secondPage.getContent().get(0)))
+                .extracting(NoteSummary::getTitle)
+                .containsExactlyInAnyOrder("Spring Boot Framework", "Spring Security Basics", "Database Management");
+
+        assertThatThrownBy(() -> noteService.searchNotes(testuser, null, TagMatch.ANY, null, cursor, 0))
+                .isInstanceOf(IllegalArgumentsException.class);
+    }
+
+    @Test
+    @DisplayName("Should export only the user's active notes")
+    void shouldExportActiveNotes() {
+        noteService.deleteNote(note3.getId(), testuser.getUsername());
+        List<NoteDto> exported = new ArrayList<>();
+
+        noteService.exportActiveNotes(testuser, exported::add);
+
+        assertThat(exported)
+                .extracting(NoteDto::getTitle)
+                .containsExactly("Spring Boot Framework", "Spring Security Basics");
+    }
+
+    @Test
+    @DisplayName("Should run a fixed number of statements per search page without loading entities")
+    void shouldSearchWithFixedStatementCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<NoteSummary> result = noteService.searchNotes(testuser, List.of("jwt", "advanced"), TagMatch.ANY, null,
+                PageRequest.of(0, 1, Sort.by("createdAt")));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent().get(0).getExcerpt()).isNotBlank();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should create, update and delete notes in batches with per-item results")
+    void shouldProcessNoteBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Note> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Note request = new Note();
+            request.setTitle("Batch note " + i);
+            request.setContent("Imported content " + i);
+            request.setTags(List.of("import"));
+            requests.add(request);
+        }
+        Note invalid = new Note();
+        invalid.setTitle("x");
+        requests.add(invalid);
+
+        statistics.clear();
+        List<BatchItemResult> created = noteService.createNotes(requests, testuser.getUsername());
+
+        assertThat(created).hasSize(11);
+        assertThat(created.subList(0, 10)).allMatch(BatchItemResult::isSuccess);
+        assertThat(created.get(10).isSuccess()).isFalse();
+        // sequence, notes, note_bodies and note_tags, independent of the batch size
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+
+        Note change = new Note();
+        change.setId(created.get(0).getId());
+        change.setTitle("Renamed batch note");
+        Note missing = new Note();
+        missing.setId(-1L);
+        List<BatchItemResult> updated = noteService.updateNotes(List.of(change, missing), testuser.getUsername());
+        assertThat(updated).extracting(BatchItemResult::isSuccess).containsExactly(true, false);
+        assertThat(noteService.getNoteById(change.getId(), testuser).getTitle()).isEqualTo("Renamed batch note");
+
+        List<BatchItemResult> deleted = noteService.deleteNotes(
+                List.of(created.get(0).getId(), created.get(1).getId()), testuser.getUsername());
+        assertThat(deleted).allMatch(BatchItemResult::isSuccess);
+        assertThat(noteService.searchNotes(testuser, List.of("import"), null, PageRequest.of(0, 20)).getTotalElements())
+                .isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should scope single-statement mutations to the note owner")
+    void shouldScopeMutationsToOwner() {
+        User other = new User();
+        other.setUsername("Other");
+        other.setPassword("uytw4321");
+        other.setEmail("other@gmail.com");
+        userRepository.save(other);
+
+        Note change = new Note();
+        change.setTitle("Hijacked");
+        assertThatThrownBy(() -> noteService.updateNote(note1.getId(), change, other.getUsername()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> noteService.deleteNote(note1.getId(), other.getUsername()))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        change.setTags(List.of("Renamed"));
+        NoteDto updated = noteService.updateNote(note1.getId(), change, testuser.getUsername());
+        assertThat(updated.getTitle()).isEqualTo("Hijacked");
+        assertThat(updated.getContent()).isEqualTo("Complete guide to Spring Boot Framework");
+        assertThat(updated.getTags()).containsExactly("renamed");
+        assertThat(noteService.searchNotes(testuser, List.of("renamed"), null, PageRequest.of(0, 10)).getContent())
+                .hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should bump the version on update and reject stale expected versions")
+    void shouldRejectStaleVersion() {
+        Integer initial = noteService.findNoteVersion(note1.getId(), testuser).orElseThrow().version();
+
+        Note change = new Note();
+        change.setTitle("Spring Boot Reference");
+        NoteDto updated = noteService.updateNote(note1.getId(), change, testuser.getUsername(), initial);
+        assertThat(updated.getVersion()).isEqualTo(initial + 1);
+        assertThat(noteService.getNoteById(note1.getId(), testuser).getVersion()).isEqualTo(initial + 1);
+
+        assertThatThrownBy(() -> noteService.updateNote(note1.getId(), change, testuser.getUsername(), initial))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    @DisplayName("Should coalesce autosaves, serve them to reads and flush them in one write")
+    void shouldCoalesceAutosaves() {
+        Integer initial = noteService.findNoteVersion(note1.getId(), testuser).orElseThrow().version();
+
+        Note first = new Note();
+        first.setTitle("Draft title");
+        first.setContent("First draft");
+        noteService.autosaveNote(note1.getId(), first, testuser.getUsername());
+        Note second = new Note();
+        second.setContent("Second draft");
+        noteService.autosaveNote(note1.getId(), second, testuser.getUsername());
+
+        NoteDto buffered = noteService.getNoteById(note1.getId(), testuser);
+        assertThat(buffered.getTitle()).isEqualTo("Draft title");
+        assertThat(buffered.getContent()).isEqualTo("Second draft");
+        assertThat(noteRepository.findById(note1.getId()).orElseThrow().getContent())
+                .isEqualTo("Complete guide to Spring Boot Framework");
+
+        noteAutosaveBuffer.flush();
+
+        assertThat(noteService.hasPendingAutosave(note1.getId(), testuser)).isFalse();
+        Note stored = noteRepository.findById(note1.getId()).orElseThrow();
+        assertThat(stored.getTitle()).isEqualTo("Draft title");
+        assertThat(stored.getContent()).isEqualTo("Second draft");
+        assertThat(stored.getVersion()).isEqualTo(initial + 1);
+    }
+
+    @Test
+    @DisplayName("Should keep autosaves through failed updates and write them with the next update")
+    void shouldKeepAutosavesAcrossUpdates() {
+        User otheruser = new User();
+        otheruser.setUsername("Kofi");
+        otheruser.setPassword("uytw4321");
+        otheruser.setEmail("kofi@gmail.com");
+        userRepository.save(otheruser);
+        Integer initial = noteService.findNoteVersion(note1.getId(), testuser).orElseThrow().version();
+
+        Note draft = new Note();
+        draft.setContent("Autosaved draft");
+        noteService.autosaveNote(note1.getId(), draft, testuser.getUsername());
+
+        Note intruder = new Note();
+        intruder.setTitle("Not yours");
+        assertThatThrownBy(() -> noteService.updateNote(note1.getId(), intruder, otheruser.getUsername()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> noteService.getNoteById(note1.getId(), otheruser))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(noteService.hasPendingAutosave(note1.getId(), otheruser)).isFalse();
+        assertThat(noteService.findNoteVersion(note1.getId(), otheruser)).isEmpty();
+        Note stale = new Note();
+        stale.setTitle("Stale title");
+        assertThatThrownBy(() -> noteService.updateNote(note1.getId(), stale, testuser.getUsername(), initial + 1))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThat(noteService.hasPendingAutosave(note1.getId(), testuser)).isTrue();
+
+        Note rename = new Note();
+        rename.setTitle("Renamed");
+        noteService.updateNote(note1.getId(), rename, testuser.getUsername(), initial);
+
+        assertThat(noteService.hasPendingAutosave(note1.getId(), testuser)).isFalse();
+        noteAutosaveBuffer.flush();
+        Note stored = noteRepository.findById(note1.getId()).orElseThrow();
+        assertThat(stored.getTitle()).isEqualTo("Renamed");
+        assertThat(stored.getContent()).isEqualTo("Autosaved draft");
+        assertThat(stored.getVersion()).isEqualTo(initial + 1);
+    }
+
+    @Test
+    @DisplayName("Should compress large bodies and leave them out of list reads")
+    void shouldCompressLargeBodies() {
+        String content = "Spring Boot makes it easy to create stand-alone applications. ".repeat(100);
+        Note request = new Note();
+        request.setTitle("Long read");
+        request.setContent(content);
+        NoteDto created = noteService.createNote(request, testuser.getUsername());
+
+        byte[] stored = readBody(created.getId());
+        assertThat(CompressedTextConverter.isCompressed(stored)).isTrue();
+        assertThat(stored.length).isLessThan(content.length() / 4);
+        assertThat(noteService.getNoteById(created.getId(), testuser).getContent()).isEqualTo(content);
+        NoteSummary summary = noteService.findAllActiveNotes(testuser).stream()
+                .filter(note -> note.getId().equals(created.getId())).findFirst().orElseThrow();
+        assertThat(summary.getContentLength()).isEqualTo(content.length());
+        assertThat(summary.getExcerpt()).hasSizeLessThanOrEqualTo(Note.EXCERPT_LENGTH + 1).endsWith("\u2026");
+        assertThat(content).startsWith(summary.getExcerpt().substring(0, summary.getExcerpt().length() - 1));
+
+        Note change = new Note();
+        change.setContent("Short again");
+        noteService.updateNote(created.getId(), change, testuser.getUsername());
+        assertThat(CompressedTextConverter.isCompressed(readBody(created.getId()))).isFalse();
+        assertThat(noteService.getNoteById(created.getId(), testuser).getContent()).isEqualTo("Short again");
+    }
+
+    @Test
+    @DisplayName("Should read notes from the second-level cache and keep users cached across tag updates")
+    void shouldCacheNotesAndUsers() {
+        Note request = new Note();
+        request.setTitle("Cached note");
+        request.setContent("Read me twice");
+        NoteDto created = noteService.createNote(request, testuser.getUsername());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(noteRepository.findById(created.getId())).isPresent();
+        assertThat(noteRepository.findById(created.getId())).isPresent();
+        assertThat(statistics.getDomainDataRegionStatistics("notes").getHitCount()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        assertThat(entityManagerFactory.getCache().contains(User.class, testuser.getId())).isTrue();
+        Note change = new Note();
+        change.setTags(List.of("cached"));
+        assertThat(noteRepository.findById(note1.getId())).isPresent();
+        noteService.updateNote(created.getId(), change, testuser.getUsername());
+        assertThat(entityManagerFactory.getCache().contains(User.class, testuser.getId())).isTrue();
+        assertThat(noteRepository.findById(created.getId()).orElseThrow().getTags()).containsExactly("cached");
+
+        // Single-note writes leave the other cached notes in place.
+        noteService.deleteNote(created.getId(), testuser.getUsername());
+        assertThat(entityManagerFactory.getCache().contains(Note.class, note1.getId())).isTrue();
+    }
+
+    private byte[] readBody(Long noteId) {
+        var entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Blob body = (Blob) entityManager.createNativeQuery("SELECT content FROM note_bodies WHERE note_id = ?1")
+                    .setParameter(1, noteId)
+                    .getSingleResult();
+            return body.getBytes(1, (int) body.length());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should archive long-deleted notes and restore them from the archive")
+    void shouldArchiveAndRestoreDeletedNotes() {
+        noteService.deleteNote(note2.getId(), testuser.getUsername());
+
+        assertThat(noteRetentionJob.moveDeletedBefore(Instant.now().plusSeconds(1))).isEqualTo(1);
+        assertThat(noteRepository.existsById(note2.getId())).isFalse();
+        assertThat(archivedNoteRepository.existsById(note2.getId())).isTrue();
+
+        noteService.restoreNote(note2.getId(), testuser.getUsername());
+
+        assertThat(archivedNoteRepository.existsById(note2.getId())).isFalse();
+        NoteDto restored = noteService.getNoteById(note2.getId(), testuser);
+        assertThat(restored.getContent()).isEqualTo("Understanding Spring Security configuration");
+        assertThat(noteService.searchNotes(testuser, List.of("jwt"), null, PageRequest.of(0, 10)).getContent())
+                .extracting(NoteSummary::getId)
+                .containsExactly(note2.getId());
+        assertThatThrownBy(() -> noteService.restoreNote(-1L, testuser.getUsername()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Should not archive a note that is restored while its batch is being moved")
+    void shouldKeepNotesRestoredDuringRetention() throws Exception {
+        noteService.deleteNote(note2.getId(), testuser.getUsername());
+        List<CompletableFuture<Void>> restores = new ArrayList<>();
+        NoteRepository racingRepository = (NoteRepository) Proxy.newProxyInstance(NoteRepository.class.getClassLoader(),
+                new Class<?>[]{NoteRepository.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(noteRepository, args);
+                    if (method.getName().equals("lockIdsDeletedBefore")) {
+                        restores.add(CompletableFuture.runAsync(
+                                () -> noteService.restoreNote(note2.getId(), testuser.getUsername())));
+                        Thread.sleep(200);
+                    }
+                    return result;
+                });
+        NoteRetentionJob job = new NoteRetentionJob(racingRepository, archivedNoteRepository, shardRouter,
+                transactionManager, meterRegistry, true, NoteRetentionJob.Mode.ARCHIVE, Duration.ZERO, 10, 1, Duration.ZERO);
+
+        assertThat(job.moveDeletedBefore(Instant.now().plusSeconds(1))).isEqualTo(1);
+        restores.get(0).get(5, TimeUnit.SECONDS);
+
+        assertThat(archivedNoteRepository.existsById(note2.getId())).isFalse();
+        NoteDto restored = noteService.getNoteById(note2.getId(), testuser);
+        assertThat(restored.getContent()).isEqualTo("Understanding Spring Security configuration");
+        assertThat(restored.getTags()).containsExactly("spring security", "jwt");
+    }
+
+    @Test
+    @DisplayName("Should soft delete all notes carrying a tag in one statement")
+    void shouldDeleteNotesByTag() {
+        int deleted = noteService.deleteNotesByTags(List.of("JWT", "advanced"), testuser.getUsername());
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(noteService.findAllActiveNotes(testuser))
+                .extracting(NoteSummary::getTitle)
+                .containsExactly("Spring Boot Framework");
+    }
+
+    @Test
+    @DisplayName("Should match partially typed search terms")
+    void shouldMatchSearchTermPrefix() {
+        Pageable pageable = PageRequest.of(0, 10);
+
+        Page<NoteSummary> result = noteService.searchNotes(testuser, null, "secur conf", pageable);
+
+        assertThat(result.getContent())
+                .extracting(NoteSummary::getTitle)
+                .containsExactly("Spring Security Basics");
+    }
+
+    @Test
+    @DisplayName("Should keep search index in sync with note changes")
+    void shouldKeepSearchIndexInSync() {
+        Pageable pageable = PageRequest.of(0, 10);
+        assertThat(noteService.searchNotes(testuser, null, "kotlin", pageable).getContent()).isEmpty();
+
+        Note request = new Note();
+        request.setTitle("Kotlin Coroutines");
+        request.setContent("Structured concurrency in Kotlin");
+        NoteDto created = noteService.createNote(request, testuser.getUsername());
+
+        assertThat(noteService.searchNotes(testuser, null, "kotlin", pageable).getContent())
+                .extracting(NoteSummary::getId)
+                .containsExactly(created.getId());
+
+        noteService.deleteNote(created.getId(), testuser.getUsername());
+        assertThat(noteService.searchNotes(testuser, null, "kotlin", pageable).getContent()).isEmpty();
+
+        noteService.restoreNote(created.getId(), testuser.getUsername());
+        assertThat(noteService.searchNotes(testuser, null, "kotlin", pageable).getContent()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should page through changes and report updates and deletions since a sync token")
+    void shouldFeedChangesSinceToken() {
+        ChangeFeedResponse first = noteService.findChanges(testuser, null, 2);
+        assertThat(first.isHasMore()).isTrue();
+        ChangeFeedResponse rest = noteService.findChanges(testuser, SyncToken.decode(first.getNextToken()), 2);
+        assertThat(rest.isHasMore()).isFalse();
+        assertThat(List.of(first, rest))
+                .flatExtracting(ChangeFeedResponse::getChanges)
+                .extracting(NoteChange::getId)
+                .containsExactly(note1.getId(), note2.getId(), note3.getId());
+
+        SyncToken token = SyncToken.decode(rest.getNextToken());
+        assertThat(noteService.findChanges(testuser, token, 10).getChanges()).isEmpty();
+
+        Note change = new Note();
+        change.setTitle("Spring Boot 3");
+        noteService.updateNote(note1.getId(), change, testuser.getUsername());
+        noteService.deleteNote(note2.getId(), testuser.getUsername());
+        Note request = new Note();
+        request.setTitle("Kotlin Coroutines");
+        NoteDto created = noteService.createNote(request, testuser.getUsername());
+
+        ChangeFeedResponse delta = noteService.findChanges(testuser, token, 10);
+        assertThat(delta.getChanges())
+                .extracting(NoteChange::getId, NoteChange::getType)
+                .containsExactly(
+                        tuple(note1.getId(), NoteChange.Type.UPDATED),
+                        tuple(note2.getId(), NoteChange.Type.DELETED),
+                        tuple(created.getId(), NoteChange.Type.CREATED));
+        assertThat(delta.getChanges().get(0).getNote().getTitle()).isEqualTo("Spring Boot 3");
+        assertThat(delta.getChanges().get(1).getNote()).isNull();
+
+        assertThat(noteService.findChanges(testuser, null, 10).getChanges())
+                .extracting(NoteChange::getId)
+                .doesNotContain(note2.getId());
+        assertThatThrownBy(() -> noteService.findChanges(testuser, new SyncToken(Instant.parse("2000-01-01T00:00:00Z"), 0L), 10))
+                .isInstanceOf(SyncTokenExpiredException.class);
+    }
+
+    @Test
+    @DisplayName("Should export notes as a Markdown zip per user and for all users")
+    void shouldExportMarkdownZips() throws Exception {
+        Note quoted = new Note();
+        quoted.setTitle("Say \"hello\", world");
+        quoted.setContent("Line one\nLine two");
+        quoted.setTags(List.of("greeting, casual", "Docs"));
+        noteService.createNote(quoted, testuser.getUsername());
+
+        User other = new User();
+        other.setUsername("Kofi");
+        other.setPassword("pass12345");
+        other.setEmail("kofi@gmail.com");
+        userRepository.save(other);
+        Note otherNote = new Note();
+        otherNote.setTitle("Other user note");
+        noteService.createNote(otherNote, other.getUsername());
+
+        ByteArrayOutputStream userZip = new ByteArrayOutputStream();
+        noteExportService.writeActiveNotes(testuser, NoteExportService.Format.MARKDOWN, userZip);
+        Map<String, String> entries = unzip(userZip.toByteArray());
+
+        assertThat(entries).hasSize(4);
+        String quotedEntry = entries.keySet().stream().filter(name -> name.endsWith("-say-hello-world.md")).findFirst().orElseThrow();
+        Note parsed = MarkdownNotes.parse(quotedEntry, entries.get(quotedEntry));
+        assertThat(parsed.getTitle()).isEqualTo("Say \"hello\", world");
+        assertThat(parsed.getContent()).isEqualTo("Line one\nLine two");
+        assertThat(parsed.getTags()).containsExactly("greeting, casual", "docs");
+
+        ByteArrayOutputStream allZip = new ByteArrayOutputStream();
+        noteExportService.startAllNotesExport().writeTo(allZip);
+
+        assertThat(unzip(allZip.toByteArray()).keySet())
+                .hasSize(5)
+                .allMatch(name -> name.startsWith("Alby/") || name.startsWith("Kofi/"))
+                .anyMatch(name -> name.startsWith("Kofi/") && name.endsWith("-other-user-note.md"));
+    }
+
+    private static Map<String, String> unzip(byte[] bytes) throws IOException {
+        Map<String, String> entries = new TreeMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    @DisplayName("Should import Markdown zip and JSON archives in the background")
+    void shouldImportNoteArchives() throws Exception {
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(zipBytes)) {
+            addEntry(zip, "notes/kafka.md", "---\ntitle: \"Kafka Streams\"\ntags: [Streaming, \" Kafka \"]\n---\n\nStateful stream processing");
+            addEntry(zip, "notes/gradle.md", "# Gradle Builds\n\nIncremental build caching");
+            addEntry(zip, "notes/x.md", "no");
+            addEntry(zip, "notes/readme.txt", "ignored");
+        }
+        NoteImportJob markdown = awaitImport(noteImportService.startImport(
+                new MockMultipartFile("file", "notes.zip", "application/zip", zipBytes.toByteArray()), null, testuser.getUsername()));
+
+        assertThat(markdown.getState()).isEqualTo(NoteImportJob.State.COMPLETED);
+        assertThat(markdown.getImported()).isEqualTo(2);
+        assertThat(markdown.getFailed()).isEqualTo(1);
+        assertThat(markdown.getErrors()).singleElement().asString().startsWith("notes/x.md");
+
+        String json = "[{\"title\": \"Redis Caching\", \"content\": \"Cache aside pattern\", \"tags\": [\"Cache\"]}, {\"title\": \"\"}]";
+        NoteImportJob jsonImport = awaitImport(noteImportService.startImport(
+                new MockMultipartFile("file", "notes.json", "application/json", json.getBytes(StandardCharsets.UTF_8)), null, testuser.getUsername()));
+
+        assertThat(jsonImport.getImported()).isEqualTo(1);
+        assertThat(jsonImport.getFailed()).isEqualTo(1);
+        assertThat(noteService.searchNotes(testuser, List.of("kafka"), null, PageRequest.of(0, 10)).getContent())
+                .extracting(NoteSummary::getTitle, NoteSummary::getTags)
+                .containsExactly(tuple("Kafka Streams", List.of("streaming", "kafka")));
+        assertThat(noteService.searchNotes(testuser, null, "gradle", PageRequest.of(0, 10)).getContent())
+                .extracting(NoteSummary::getTitle)
+                .containsExactly("Gradle Builds");
+        assertThat(noteService.searchNotes(testuser, List.of("cache"), null, PageRequest.of(0, 10)).getContent()).hasSize(1);
+        assertThatThrownBy(() -> noteImportService.getJob(jsonImport.getId(), "someone-else"))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        MockMultipartFile broken = new MockMultipartFile("file", "notes.json", "application/json", json.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void transferTo(Path dest) throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        long spooled = countImportFiles();
+        assertThatThrownBy(() -> noteImportService.startImport(broken, null, testuser.getUsername()))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(countImportFiles()).isEqualTo(spooled);
+    }
+
+    private static long countImportFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("note-import-")).count();
+        }
+    }
+
+    private static void addEntry(ZipOutputStream zip, String name, String text) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(text.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private NoteImportJob awaitImport(NoteImportJob job) throws InterruptedException {
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(job.isFinished()).isTrue();
+        return noteImportService.getJob(job.getId(), testuser.getUsername());
+    }
+
 }
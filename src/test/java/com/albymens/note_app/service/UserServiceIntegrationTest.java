@@ -0,0 +1,145 @@
+package com.albymens.note_app.service;
+
+import com.albymens.note_app.exception.ServerBusyException;
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.NoteRepository;
+import com.albymens.note_app.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class UserServiceIntegrationTest {
+    @SpyBean
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private NoteRepository noteRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserCache userCache;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User testuser;
+
+    @BeforeEach
+    public void setUp(){
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+
+        testuser = new User();
+        testuser.setUsername("Alby");
+        testuser.setPassword("uytw4321");
+        testuser.setEmail("alby@gmail.com");
+        userRepository.save(testuser);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated user lookups from the cache")
+    void shouldCacheUserLookups() {
+        double hitsBefore = meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count();
+
+        User first = userService.findByUsernameOrEmail("Alby");
+        User second = userService.findByUsernameOrEmail("Alby");
+
+        assertThat(second).isSameAs(first);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count()).isGreaterThan(hitsBefore);
+    }
+
+    @Test
+    @DisplayName("Should evict cached users when they change")
+    void shouldEvictCachedUserOnUpdate() {
+        User cached = userService.findByUsernameOrEmail("alby@gmail.com");
+
+        cached.setPassword("changed-password");
+        userRepository.save(cached);
+
+        User reloaded = userService.findByUsernameOrEmail("alby@gmail.com");
+        assertThat(reloaded).isNotSameAs(cached);
+        assertThat(reloaded.getPassword()).isEqualTo("changed-password");
+    }
+
+    @Test
+    @DisplayName("Should evict cached users only once the change commits")
+    void shouldEvictCachedUserAfterCommit() throws Exception {
+        userService.findByUsernameOrEmail("Alby");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(testuser.getId()).orElseThrow();
+            user.setPassword("changed-password");
+            userRepository.saveAndFlush(user);
+            // A concurrent lookup still sees the committed row and caches it again.
+            CompletableFuture.runAsync(() -> userService.findByUsernameOrEmail("Alby")).join();
+        });
+
+        assertThat(userService.findByUsernameOrEmail("Alby").getPassword()).isEqualTo("changed-password");
+    }
+
+    @Test
+    @DisplayName("Should resolve users from the second-level cache without querying the database")
+    void shouldServeUsersFromSecondLevelCache() {
+        userService.findByUsernameOrEmail("alby@gmail.com");
+        userCache.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(userService.findByUsernameOrEmail("Alby").getEmail()).isEqualTo("alby@gmail.com");
+        assertThat(userService.findByUsernameOrEmail("alby@gmail.com").getUsername()).isEqualTo("Alby");
+
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should answer 503 with Retry-After when the user lookup is busy during authentication")
+    void shouldReportBusyUserLookupsAsUnavailable() throws Exception {
+        String token = jwtService.generateToken(testuser.getUsername(), testuser.getId());
+        doThrow(new ServerBusyException("busy")).when(userService).loadUserByUsername("Alby");
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usernameOrEmail\":\"Alby\",\"password\":\"uytw4321\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(get("/api/notes").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+}
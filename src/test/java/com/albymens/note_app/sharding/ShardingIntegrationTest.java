@@ -0,0 +1,168 @@
+package com.albymens.note_app.sharding;
+
+import com.albymens.note_app.dto.NoteDto;
+import com.albymens.note_app.dto.NoteSummary;
+import com.albymens.note_app.model.Note;
+import com.albymens.note_app.model.User;
+import com.albymens.note_app.repository.UserRepository;
+import com.albymens.note_app.service.NoteImportJob;
+import com.albymens.note_app.service.NoteImportService;
+import com.albymens.note_app.service.NoteService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "notes.sharding.enabled=true",
+        "notes.sharding.shards[0].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "notes.sharding.shards[0].username=sa",
+        "management.endpoints.web.exposure.include=shards"
+})
+@AutoConfigureMockMvc
+public class ShardingIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private NoteService noteService;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private DirectoryShardMap shardMap;
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private NoteImportService noteImportService;
+
+    private final JdbcTemplate shard0 = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:shard0", "sa", ""));
+    private final JdbcTemplate shard1 = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:shard1", "sa", ""));
+
+    @Test
+    @DisplayName("Should keep each user's notes on their shard, gather them for admin search and move them online")
+    void shouldRouteGatherAndRebalanceNotes() throws InterruptedException {
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        shardMap.assign(alice.getId(), 0);
+        shardMap.assign(bob.getId(), 1);
+
+        NoteDto aliceNote = shardRouter.callAs(alice.getId(), () -> noteService.createNote(note("Alice's plan"), "alice"));
+        NoteDto bobNote = shardRouter.callAs(bob.getId(), () -> noteService.createNote(note("Bob's plan"), "bob"));
+        shardRouter.runAs(bob.getId(), () -> noteService.updateNote(bobNote.getId(), note("Bob's revised plan"), "bob"));
+
+        assertThat(countNotes(shard0, bob)).isZero();
+        assertThat(countNotes(shard1, bob)).isEqualTo(1);
+        assertThat(countNotes(shard0, alice)).isEqualTo(1);
+        assertThat(bobNote.getId()).isNotEqualTo(aliceNote.getId());
+
+        Page<NoteSummary> all = noteService.searchNotes(null, null, null,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")));
+        assertThat(all.getTotalElements()).isEqualTo(2);
+        assertThat(all.getContent()).extracting(NoteSummary::getTitle)
+                .containsExactly("Bob's revised plan", "Alice's plan");
+
+        assertThat(shardRebalancer.moveUser(bob.getId(), 0)).isEqualTo(1);
+
+        assertThat(shardMap.shardOf(bob.getId())).isZero();
+        assertThat(countNotes(shard1, bob)).isZero();
+        NoteDto moved = shardRouter.callAs(bob.getId(), () -> noteService.getNoteById(bobNote.getId(), bob));
+        assertThat(moved.getTitle()).isEqualTo("Bob's revised plan");
+        assertThat(moved.getContent()).isEqualTo("Bob's revised plan in detail");
+        assertThat(moved.getTags()).containsExactly("planning");
+    }
+
+    @Test
+    @DisplayName("Should only let administrators move users between shards")
+    void shouldRequireAdminToMoveUsers() throws Exception {
+        User carol = createUser("carol");
+        shardMap.assign(carol.getId(), 0);
+        String move = "{\"userId\": " + carol.getId() + ", \"shard\": 1}";
+
+        mockMvc.perform(post("/actuator/shards")
+                        .with(user("carol").authorities(new SimpleGrantedAuthority("USER")))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(move))
+                .andExpect(status().isForbidden());
+        assertThat(shardMap.shardOf(carol.getId())).isZero();
+
+        mockMvc.perform(post("/actuator/shards")
+                        .with(user("admin").authorities(new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority("ADMIN")))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(move))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shard").value(1));
+        assertThat(shardMap.shardOf(carol.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should hold the user's shard per import batch and wait while the user is moved")
+    void shouldWaitOutMovesDuringImports() throws Exception {
+        User dave = createUser("dave");
+        shardMap.assign(dave.getId(), 0);
+        assertThat(shardRouter.freeze(dave.getId(), Duration.ofSeconds(1))).isTrue();
+
+        String json = "[{\"title\": \"Shard moves\", \"content\": \"Wait for the move\"}]";
+        NoteImportJob job = noteImportService.startImport(new MockMultipartFile(
+                "file", "notes.json", "application/json", json.getBytes(StandardCharsets.UTF_8)), null, "dave");
+        Thread.sleep(300);
+        assertThat(job.isFinished()).isFalse();
+
+        shardRouter.unfreeze(dave.getId());
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(job.getState()).isEqualTo(NoteImportJob.State.COMPLETED);
+        assertThat(job.getImported()).isEqualTo(1);
+        assertThat(countNotes(shard0, dave)).isEqualTo(1);
+
+        Long noteId = shard0.queryForObject("SELECT id FROM notes WHERE user_id = ?", Long.class, dave.getId());
+        shardRouter.runAs(dave.getId(), () -> noteService.deleteNote(noteId, "dave"));
+    }
+
+    private User createUser(String username){
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@gmail.com");
+        user.setPassword("uytw4321");
+        return userRepository.save(user);
+    }
+
+    private Note note(String title){
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent(title + " in detail");
+        note.setTags(List.of("Planning"));
+        return note;
+    }
+
+    private int countNotes(JdbcTemplate shard, User user){
+        return shard.queryForObject("SELECT COUNT(*) FROM notes WHERE user_id = ?", Integer.class, user.getId());
+    }
+}